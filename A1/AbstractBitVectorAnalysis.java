@@ -0,0 +1,177 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.fact.VarBitMask;
+import pascal.taie.analysis.dataflow.fact.VarBitSetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Collection;
+
+/**
+ * Base class of gen/kill analyses over the variables of a method.
+ * Subclasses only declare the gen and kill sets of each node, which are
+ * compiled into bit masks on the first transfer of the node, and the
+ * transfer function computes gen U (input - kill) on whole words of
+ * {@link VarBitSetFact}s. The meet operator is union by default.
+ * <p>
+ * The masks are kept by the instance of each method, see
+ * {@link #forMethod(IR)}, in an array indexed by {@link Stmt#getIndex()},
+ * so they are released once the method is solved.
+ *
+ * @param <Node> type of CFG nodes
+ */
+public abstract class AbstractBitVectorAnalysis<Node> extends
+        AbstractDataflowAnalysis<Node, SetFact<Var>> implements IdentityTransfer<Node> {
+
+    private final AnalysisConfig config;
+
+    /**
+     * The method whose masks are cached, or null for the instance
+     * shared by all methods.
+     */
+    private final IR ir;
+
+    /**
+     * Masks of the statements of {@link #ir}, indexed by
+     * {@link Stmt#getIndex()} and filled on demand.
+     */
+    private final GenKill[] genKills;
+
+    protected AbstractBitVectorAnalysis(AnalysisConfig config) {
+        super(config);
+        this.config = config;
+        this.ir = null;
+        this.genKills = null;
+    }
+
+    protected AbstractBitVectorAnalysis(AnalysisConfig config, IR ir) {
+        super(config);
+        this.config = config;
+        this.ir = ir;
+        this.genKills = new GenKill[ir.getStmts().size()];
+    }
+
+    /**
+     * @return a new instance of this analysis for given method.
+     */
+    protected abstract AbstractBitVectorAnalysis<Node> newInstance(
+            AnalysisConfig config, IR ir);
+
+    /**
+     * @return an instance of this analysis which caches the masks of
+     * given method. The masks are released together with the instance,
+     * e.g., after the method is solved.
+     */
+    public AbstractBitVectorAnalysis<Node> forMethod(IR ir) {
+        return this.ir == ir ? this : newInstance(config, ir);
+    }
+
+    @Override
+    public DataflowResult<Node, SetFact<Var>> analyze(IR ir) {
+        return this.ir == ir ? super.analyze(ir) : forMethod(ir).analyze(ir);
+    }
+
+    /**
+     * @return the variables generated by given node.
+     */
+    protected abstract Collection<Var> getGen(Node node);
+
+    /**
+     * @return the variables killed by given node.
+     */
+    protected abstract Collection<Var> getKill(Node node);
+
+    @Override
+    public SetFact<Var> newBoundaryFact(CFG<Node> cfg) {
+        return new VarBitSetFact();
+    }
+
+    @Override
+    public SetFact<Var> newInitialFact() {
+        return new VarBitSetFact();
+    }
+
+    @Override
+    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
+        target.union(fact);
+    }
+
+    /**
+     * Applies gen U (in - kill), where in is the IN fact for forward
+     * analyses, or the OUT fact for backward analyses.
+     */
+    @Override
+    public boolean transferNode(Node node, SetFact<Var> in, SetFact<Var> out) {
+        if (in instanceof VarBitSetFact bitIn && out instanceof VarBitSetFact bitOut) {
+            GenKill genKill = getGenKill(node);
+            return bitOut.transfer(bitIn, genKill.gen, genKill.kill);
+        }
+        SetFact<Var> oldOut = out.copy();
+        out.union(in);
+        getKill(node).forEach(out::remove);
+        getGen(node).forEach(out::add);
+        return !out.equals(oldOut);
+    }
+
+    /**
+     * Nodes with empty gen and kill sets do not change the facts.
+     */
+    @Override
+    public boolean isIdentity(Node node) {
+        GenKill genKill = getGenKill(node);
+        return genKill.gen.isEmpty() && genKill.kill.isEmpty();
+    }
+
+    /**
+     * Masks of the nodes outside {@link #ir}, e.g., the entry and exit
+     * of the CFG, are not cached.
+     */
+    private GenKill getGenKill(Node node) {
+        if (ir != null && node instanceof Stmt stmt) {
+            int index = stmt.getIndex();
+            if (index >= 0 && index < genKills.length &&
+                    ir.getStmt(index) == stmt) {
+                GenKill genKill = genKills[index];
+                if (genKill == null) {
+                    genKill = genKills[index] = computeGenKill(node);
+                }
+                return genKill;
+            }
+        }
+        return computeGenKill(node);
+    }
+
+    private GenKill computeGenKill(Node node) {
+        return new GenKill(VarBitMask.of(getGen(node)), VarBitMask.of(getKill(node)));
+    }
+
+    private record GenKill(VarBitMask gen, VarBitMask kill) {
+    }
+}
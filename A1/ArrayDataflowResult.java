@@ -0,0 +1,93 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link DataflowResult} which stores facts in plain arrays indexed by
+ * a dense numbering of the nodes, instead of hash maps.
+ *
+ * @param <Node> type of graph nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class ArrayDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private final ToIntFunction<Node> indexer;
+
+    private final Object[] inFacts;
+
+    private final Object[] outFacts;
+
+    /**
+     * @param size    number of nodes
+     * @param indexer maps each node to a distinct index in [0, size)
+     */
+    public ArrayDataflowResult(int size, ToIntFunction<Node> indexer) {
+        this.indexer = indexer;
+        this.inFacts = new Object[size];
+        this.outFacts = new Object[size];
+    }
+
+    /**
+     * Creates a result for given statement-level CFG. Statements are
+     * indexed by {@link Stmt#getIndex()}, and the artificial entry and
+     * exit nodes, which are not in the IR, take the first two slots.
+     */
+    public static <Fact> ArrayDataflowResult<Stmt, Fact> of(CFG<Stmt> cfg) {
+        Stmt entry = cfg.getEntry();
+        Stmt exit = cfg.getExit();
+        return new ArrayDataflowResult<>(cfg.getIR().getStmts().size() + 2,
+                stmt -> stmt == entry ? 0 : stmt == exit ? 1 : stmt.getIndex() + 2);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Node node) {
+        return (Fact) inFacts[indexer.applyAsInt(node)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Node node) {
+        return (Fact) outFacts[indexer.applyAsInt(node)];
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        inFacts[indexer.applyAsInt(node)] = fact;
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        outFacts[indexer.applyAsInt(node)] = fact;
+    }
+
+    @Override
+    public Fact getResult(Node node) {
+        return getOutFact(node);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.cfg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Depth-first orders of the nodes of a CFG.
+ */
+public final class CFGOrders {
+
+    private CFGOrders() {
+    }
+
+    /**
+     * @return nodes of given CFG in post-order of a depth-first
+     * traversal from the entry, followed by the nodes unreachable from it.
+     */
+    public static <Node> List<Node> postOrder(CFG<Node> cfg) {
+        List<Node> order = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        visit(cfg, cfg.getEntry(), visited, nodes, succs, order);
+        for (Node node : cfg) {
+            visit(cfg, node, visited, nodes, succs, order);
+        }
+        return order;
+    }
+
+    /**
+     * @return nodes of given CFG in reverse post-order of a depth-first
+     * traversal from the entry, followed by the nodes unreachable from it.
+     */
+    public static <Node> List<Node> reversePostOrder(CFG<Node> cfg) {
+        List<Node> order = postOrder(cfg);
+        Collections.reverse(order);
+        return order;
+    }
+
+    private static <Node> void visit(CFG<Node> cfg, Node root, Set<Node> visited,
+                                     Deque<Node> nodes, Deque<Iterator<Node>> succs,
+                                     List<Node> order) {
+        if (!visited.add(root)) {
+            return;
+        }
+        // iterative DFS to avoid stack overflow on huge methods
+        nodes.push(root);
+        succs.push(cfg.getSuccsOf(root).iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    nodes.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                order.add(nodes.pop());
+                succs.pop();
+            }
+        }
+    }
+}
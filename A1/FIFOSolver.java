@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Plain work-list solver with a FIFO queue, which is seeded with all
+ * nodes and re-offers the successors (predecessors for backward analyses)
+ * of every changed node, even if they are already queued. It is the
+ * baseline which {@link ComparingSolver} compares the WTO solver with.
+ */
+class FIFOSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    FIFOSolver(DataflowAnalysis<Node, Fact> analysis, SolverStats stats) {
+        super(analysis, stats);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        Queue<Node> workList = new ArrayDeque<>(cfg.getNodes());
+        stats.recordWorkListSize(workList.size());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            stats.countIteration();
+            Fact in = analysis.newInitialFact();
+            for (Node pred : cfg.getPredsOf(node)) {
+                meetInto(result.getOutFact(pred), in);
+            }
+            result.setInFact(node, in);
+            if (transferNode(node, in, result.getOutFact(node))) {
+                workList.addAll(cfg.getSuccsOf(node));
+                stats.recordWorkListSize(workList.size());
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        Queue<Node> workList = new ArrayDeque<>(cfg.getNodes());
+        stats.recordWorkListSize(workList.size());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            stats.countIteration();
+            Fact out = analysis.newInitialFact();
+            for (Node succ : cfg.getSuccsOf(node)) {
+                meetInto(result.getInFact(succ), out);
+            }
+            result.setOutFact(node, out);
+            if (transferNode(node, out, result.getInFact(node))) {
+                workList.addAll(cfg.getPredsOf(node));
+                stats.recordWorkListSize(workList.size());
+            }
+        }
+    }
+}
@@ -24,9 +24,7 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
-import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
-import pascal.taie.ir.exp.Var;
 
 class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
 
@@ -47,23 +45,34 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
             flag = false;
             // 开始遍历cfg
             for (Node node : cfg) {
+                stats.countIteration();
                 // 输出
-                SetFact<Var> out = new SetFact<>();
+                Fact out = analysis.newInitialFact();
                 // 输入
-                SetFact<Var> in = (SetFact<Var>) result.getInFact(node);
+                Fact in = result.getInFact(node);
 
                 // OUT[B] = U_s_a_successor_of_b IN[S];
                 for (Node succ : cfg.getSuccsOf(node)) {
-                    out.union((SetFact<Var>) result.getInFact(succ));
+                    meetInto(result.getInFact(succ), out);
+                }
+
+                if (isIdentity(cfg, node)) {
+                    // IN[B] = OUT[B], share the fact
+                    if (!out.equals(in)) {
+                        flag = true;
+                    }
+                    result.setInFact(node, out);
+                    result.setOutFact(node, out);
+                    continue;
                 }
 
                 // IN[B] = use_B U (OUT[B]-def[B])
-                if (analysis.transferNode(node, (Fact) out, (Fact) in)){
+                if (transferNode(node, out, in)){
                     flag = true;
                 }
 
-                result.setInFact(node, (Fact) in);
-                result.setOutFact(node, (Fact) out);
+                result.setInFact(node, in);
+                result.setOutFact(node, out);
             }
         }
     }
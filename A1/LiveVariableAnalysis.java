@@ -22,20 +22,19 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
-import pascal.taie.analysis.dataflow.fact.SetFact;
-import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
-import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Implementation of classic live variable analysis.
  */
-public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+public class LiveVariableAnalysis extends AbstractBitVectorAnalysis<Stmt> {
 
     public static final String ID = "livevar";
 
@@ -43,58 +42,42 @@ public class LiveVariableAnalysis extends
         super(config);
     }
 
-    @Override
-    public boolean isForward() {
-        return false;
+    private LiveVariableAnalysis(AnalysisConfig config, IR ir) {
+        super(config, ir);
     }
 
     @Override
-    public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - check
-        // IN[exit] = 空
-        return new SetFact<>();
+    protected LiveVariableAnalysis newInstance(AnalysisConfig config, IR ir) {
+        return new LiveVariableAnalysis(config, ir);
     }
 
     @Override
-    public SetFact<Var> newInitialFact() {
-        // TODO - check
-        // IN[B] = 空
-        return new SetFact<>();
+    public LiveVariableAnalysis forMethod(IR ir) {
+        return (LiveVariableAnalysis) super.forMethod(ir);
     }
 
     @Override
-    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
-        // TODO - check
-        target.union(fact);
+    public boolean isForward() {
+        return false;
     }
 
-    // transfer函数处理的是单条语句而非程序块!!!
+    // 公式：IN[B] = use_B U (OUT[B]-def[B])
     @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        // TODO - check
-        // 公式：IN[B] = use_B U (OUT[B]-def[B])
-        // 对于Live Variables Analysis，因为是Backwards,所以out指的是IN[B],in指的是OUT[B],stmt指的是B
-
-        // 保存旧的输出，也就是Old_IN[B]
-        SetFact<Var> oldOut = out.copy();
-
-        // IN[B] = OUT[B]
-        out.union(in);
-
-        // IN[B] = OUT[B]-def[B] - def
-        stmt.getDef().ifPresent(def -> {
-            if (def instanceof Var)
-                out.remove((Var) def);
-        });
+    protected Collection<Var> getGen(Stmt stmt) {
         // use_B
-        List<RValue> use_B = stmt.getUses();
-        // + use
-        // IN[B] = IN[B] U use_B
-        use_B.forEach(use -> {
-            if (use instanceof Var)
-                out.add((Var) use);
+        List<Var> uses = new ArrayList<>();
+        stmt.getUses().forEach(use -> {
+            if (use instanceof Var var) {
+                uses.add(var);
+            }
         });
-        // 与原来相比结果是否相同
-        return !out.equals(oldOut);
+        return uses;
+    }
+
+    @Override
+    protected Collection<Var> getKill(Stmt stmt) {
+        // def_B
+        return stmt.getDef().orElse(null) instanceof Var def ?
+                List.of(def) : List.of();
     }
 }
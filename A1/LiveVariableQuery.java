@@ -0,0 +1,141 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Demand-driven liveness queries, as a cheaper alternative to
+ * {@link LiveVariableAnalysis} when only a few program points are
+ * of interest. A query explores the paths from the queried point until
+ * the variable is used or redefined, and the answers are memoized.
+ * The queries of a method share one instance, which is not thread-safe.
+ */
+public class LiveVariableQuery {
+
+    public static final String ID = "livevar-query";
+
+    private static final byte UNKNOWN = 0;
+
+    private static final byte LIVE = 1;
+
+    private static final byte DEAD = 2;
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Liveness of each variable at the IN of each node.
+     */
+    private final Map<Var, byte[]> liveIn = new HashMap<>();
+
+    public LiveVariableQuery(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+    }
+
+    /**
+     * @return the query instance of the method of given IR,
+     * which is created on first request. The CFG must have been built.
+     */
+    public static LiveVariableQuery of(IR ir) {
+        if (!ir.hasResult(ID)) {
+            ir.storeResult(ID, new LiveVariableQuery(ir.getResult(CFGBuilder.ID)));
+        }
+        return ir.getResult(ID);
+    }
+
+    /**
+     * @return true if var is live at the OUT of stmt, otherwise false.
+     */
+    public boolean isLiveAfter(Stmt stmt, Var var) {
+        for (Stmt succ : cfg.getSuccsOf(stmt)) {
+            if (isLiveBefore(succ, var)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if var is live at the IN of stmt, otherwise false.
+     */
+    public boolean isLiveBefore(Stmt stmt, Var var) {
+        byte[] states = liveIn.computeIfAbsent(var,
+                v -> new byte[cfg.getIR().getStmts().size() + 2]);
+        int index = index(stmt);
+        if (states[index] != UNKNOWN) {
+            return states[index] == LIVE;
+        }
+        List<Integer> visited = new ArrayList<>();
+        Deque<Stmt> stack = new ArrayDeque<>();
+        stack.push(stmt);
+        while (!stack.isEmpty()) {
+            Stmt node = stack.pop();
+            int i = index(node);
+            if (states[i] == LIVE || uses(node, var)) {
+                // found a use; nodes visited so far are not concluded
+                for (int v : visited) {
+                    states[v] = UNKNOWN;
+                }
+                states[index] = LIVE;
+                return true;
+            }
+            if (states[i] != UNKNOWN) {
+                continue;
+            }
+            // marked to avoid revisiting, and kept if no use is found
+            states[i] = DEAD;
+            visited.add(i);
+            if (node.getDef().orElse(null) != var) {
+                cfg.getSuccsOf(node).forEach(stack::push);
+            }
+        }
+        return false;
+    }
+
+    private int index(Stmt stmt) {
+        // the entry and exit are not in the IR
+        return stmt == cfg.getEntry() ? 0 :
+                stmt == cfg.getExit() ? 1 : stmt.getIndex() + 2;
+    }
+
+    private static boolean uses(Stmt stmt, Var var) {
+        for (RValue use : stmt.getUses()) {
+            if (use == var) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
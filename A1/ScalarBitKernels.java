@@ -0,0 +1,82 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+/**
+ * Scalar implementation of {@link BitKernels}.
+ */
+final class ScalarBitKernels implements BitKernels {
+
+    @Override
+    public boolean or(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        for (int i = from; i < to; ++i) {
+            long old = dst[i];
+            dst[i] = old | src[i];
+            changed |= dst[i] != old;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean and(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        for (int i = from; i < to; ++i) {
+            long old = dst[i];
+            dst[i] = old & src[i];
+            changed |= dst[i] != old;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean andNot(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        for (int i = from; i < to; ++i) {
+            long old = dst[i];
+            dst[i] = old & ~src[i];
+            changed |= dst[i] != old;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean copy(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        for (int i = from; i < to; ++i) {
+            changed |= dst[i] != src[i];
+            dst[i] = src[i];
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean equals(long[] a, long[] b, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -22,9 +22,13 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.IdentityTransfer;
+import pascal.taie.analysis.dataflow.fact.ArrayDataflowResult;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -37,16 +41,58 @@ public abstract class Solver<Node, Fact> {
 
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Counters of the work done by the solvers of the analysis.
+     */
+    protected final SolverStats stats;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
+        this(analysis, SolverStats.of(analysis));
+    }
+
+    /**
+     * Creates a solver which counts its work by given counters instead of
+     * those of the analysis.
+     */
+    protected Solver(DataflowAnalysis<Node, Fact> analysis, SolverStats stats) {
         this.analysis = analysis;
+        this.stats = stats;
     }
 
     /**
      * Static factory method to create a new solver for given analysis.
+     * The solver can be chosen by the "solver" option of the analysis,
+     * and the work-list solver is used by default.
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new IterativeSolver<>(analysis);
+        String kind = "worklist";
+        if (analysis instanceof MethodAnalysis methodAnalysis &&
+                methodAnalysis.getOptions().has("solver")) {
+            kind = methodAnalysis.getOptions().getString("solver");
+        }
+        return makeSolver(analysis, kind);
+    }
+
+    /**
+     * Creates a new solver of given kind for given analysis.
+     *
+     * @param kind "iterative" for the round-robin solver,
+     *             "worklist" for the work-list solver, "wto" for the
+     *             solver iterating over weak topological order, or
+     *             "compare" for the WTO solver which also logs how many
+     *             transfers it saves compared with a FIFO work-list
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, String kind) {
+        return switch (kind) {
+            case "iterative" -> new IterativeSolver<>(analysis);
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "wto" -> new WTOSolver<>(analysis);
+            case "compare" -> new ComparingSolver<>(analysis);
+            default -> throw new IllegalArgumentException(
+                    "Unknown data-flow solver: " + kind);
+        };
     }
 
     /**
@@ -56,8 +102,10 @@ public abstract class Solver<Node, Fact> {
      * @return the analysis result
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        long start = System.nanoTime();
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
+        stats.recordRun(cfg.getMethod(), System.nanoTime() - start);
         return result;
     }
 
@@ -67,7 +115,7 @@ public abstract class Solver<Node, Fact> {
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,6 +124,19 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. Statement-level
+     * CFGs get an array-backed result indexed by statement index.
+     */
+    @SuppressWarnings("unchecked")
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return (DataflowResult<Node, Fact>) (DataflowResult<?, ?>)
+                    ArrayDataflowResult.of((CFG<Stmt>) cfg);
+        }
+        return new DataflowResult<>();
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         throw new UnsupportedOperationException();
     }
@@ -105,6 +166,36 @@ public abstract class Solver<Node, Fact> {
         }
     }
 
+    /**
+     * Applies the transfer function of the analysis on given node,
+     * and counts the transfer.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out) {
+        boolean changed = analysis.transferNode(node, in, out);
+        stats.countTransfer(changed);
+        return changed;
+    }
+
+    /**
+     * Meets fact into target by the analysis, and counts the meet.
+     */
+    protected void meetInto(Fact fact, Fact target) {
+        stats.countMeet();
+        analysis.meetInto(fact, target);
+    }
+
+    /**
+     * @return true if the transfer function of given node is identity,
+     * and the node is not the boundary node, whose fact is fixed.
+     * IN and OUT of such nodes share one fact instance.
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean isIdentity(CFG<Node> cfg, Node node) {
+        return analysis instanceof IdentityTransfer<?> identity &&
+                node != (analysis.isForward() ? cfg.getEntry() : cfg.getExit()) &&
+                ((IdentityTransfer<Node>) identity).isIdentity(node);
+    }
+
     protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
     protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
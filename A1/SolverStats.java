@@ -0,0 +1,265 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.Analysis;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the work done by data-flow solvers, aggregated per
+ * analysis ID. The counters are thread-safe, so solvers running on
+ * different methods in parallel may update the same counters.
+ * <p>
+ * If system property {@code pascal.taie.solver.stats} is set, the counters
+ * of all analyses are exported as JSON to the file it names at the end
+ * of the run. They can also be exported by {@link #exportJson(Path)}.
+ */
+public class SolverStats {
+
+    private static final Logger logger = LogManager.getLogger(SolverStats.class);
+
+    private static final Map<String, SolverStats> allStats = new ConcurrentHashMap<>();
+
+    static {
+        String output = System.getProperty("pascal.taie.solver.stats");
+        if (output != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    exportJson(Path.of(output));
+                } catch (UncheckedIOException e) {
+                    logger.error("Failed to export solver statistics", e);
+                }
+            }));
+        }
+    }
+
+    private final String analysisId;
+
+    private final LongAdder transfers = new LongAdder();
+
+    private final LongAdder changedTransfers = new LongAdder();
+
+    private final LongAdder meets = new LongAdder();
+
+    private final LongAdder iterations = new LongAdder();
+
+    private final LongAccumulator maxWorkList = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder runs = new LongAdder();
+
+    private final LongAdder time = new LongAdder();
+
+    /**
+     * Wall time (in nanoseconds) spent on each method.
+     */
+    private final Map<Object, LongAdder> methodTimes = new ConcurrentHashMap<>();
+
+    private SolverStats(String analysisId) {
+        this.analysisId = analysisId;
+    }
+
+    /**
+     * @return the counters of given analysis, which are shared by all
+     * solvers of the analyses with the same ID.
+     */
+    public static SolverStats of(Object analysis) {
+        String id = analysis instanceof Analysis a ?
+                a.getId() : analysis.getClass().getSimpleName();
+        return allStats.computeIfAbsent(id, SolverStats::new);
+    }
+
+    /**
+     * @return the counters of given ID, e.g., of the solver runs done
+     * only for comparison, which are kept apart from the analysis.
+     */
+    public static SolverStats of(String id) {
+        return allStats.computeIfAbsent(id, SolverStats::new);
+    }
+
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    public void countTransfer(boolean changed) {
+        transfers.increment();
+        if (changed) {
+            changedTransfers.increment();
+        }
+    }
+
+    public void countMeet() {
+        meets.increment();
+    }
+
+    /**
+     * Counts a visit of a node (or any other unit of work) taken from
+     * the work list, or a node visited in a round of iteration.
+     */
+    public void countIteration() {
+        iterations.increment();
+    }
+
+    /**
+     * Records the current size of a work list, to track its high-water mark.
+     */
+    public void recordWorkListSize(long size) {
+        maxWorkList.accumulate(size);
+    }
+
+    /**
+     * Records a run of a solver.
+     *
+     * @param method the method which the solver ran on, or null if the run
+     *               is not specific to a method (e.g., inter-procedural)
+     * @param nanos  wall time of the run
+     */
+    public void recordRun(Object method, long nanos) {
+        runs.increment();
+        time.add(nanos);
+        if (method != null) {
+            recordMethodTime(method, nanos);
+        }
+    }
+
+    /**
+     * Adds wall time spent on given method, for solvers whose runs span
+     * multiple methods and record them with {@code recordRun(null, ...)}.
+     */
+    public void recordMethodTime(Object method, long nanos) {
+        methodTimes.computeIfAbsent(method, m -> new LongAdder()).add(nanos);
+    }
+
+    public long getTransfers() {
+        return transfers.sum();
+    }
+
+    public long getChangedTransfers() {
+        return changedTransfers.sum();
+    }
+
+    public long getMeets() {
+        return meets.sum();
+    }
+
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    public long getMaxWorkList() {
+        return maxWorkList.get();
+    }
+
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    /**
+     * @return the total wall time (in nanoseconds) of all runs.
+     */
+    public long getTime() {
+        return time.sum();
+    }
+
+    /**
+     * @return the counters of all analyses as a JSON object keyed by
+     * analysis ID. Methods are listed in descending order of time.
+     */
+    public static String toJson() {
+        StringJoiner analyses = new StringJoiner(",\n", "{\n", "\n}\n");
+        new TreeMap<>(allStats).forEach((id, stats) ->
+                analyses.add("  " + quote(id) + ": " + stats.toJsonObject()));
+        return analyses.toString();
+    }
+
+    private String toJsonObject() {
+        StringJoiner methods = new StringJoiner(",\n", "{\n", "\n    }");
+        methods.setEmptyValue("{}");
+        methodTimes.entrySet()
+                .stream()
+                .map(e -> Map.entry(e.getKey().toString(), e.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> methods.add("      " + quote(e.getKey()) +
+                        ": " + toMillis(e.getValue())));
+        return "{\n" +
+                "    \"runs\": " + getRuns() + ",\n" +
+                "    \"transfers\": " + getTransfers() + ",\n" +
+                "    \"changedTransfers\": " + getChangedTransfers() + ",\n" +
+                "    \"meets\": " + getMeets() + ",\n" +
+                "    \"iterations\": " + getIterations() + ",\n" +
+                "    \"maxWorkList\": " + getMaxWorkList() + ",\n" +
+                "    \"timeMs\": " + toMillis(getTime()) + ",\n" +
+                "    \"methodTimeMs\": " + methods + "\n" +
+                "  }";
+    }
+
+    /**
+     * Writes {@link #toJson()} to given file.
+     */
+    public static void exportJson(Path path) {
+        try {
+            Files.writeString(path, toJson());
+            logger.info("Solver statistics are exported to {}", path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toMillis(long nanos) {
+        return String.valueOf(nanos / 1_000_000.0);
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Element;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.List;
+
+/**
+ * Solver which follows the recursive iteration strategy over the
+ * weak topological order of the CFG: every component is iterated
+ * until its head is stable, so inner loops stabilize before outer ones
+ * and straight-line code is transferred only once per stabilization.
+ */
+class WTOSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis, SolverStats stats) {
+        super(analysis, stats);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        WeakTopologicalOrder<Node> wto = WeakTopologicalOrder.build(
+                cfg.getEntry(), cfg.getNodes(), cfg::getSuccsOf);
+        stabilize(wto.getElements(), node -> {
+            stats.countIteration();
+            Fact in = analysis.newInitialFact();
+            for (Node pred : cfg.getPredsOf(node)) {
+                meetInto(result.getOutFact(pred), in);
+            }
+            result.setInFact(node, in);
+            return transferNode(node, in, result.getOutFact(node));
+        });
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        WeakTopologicalOrder<Node> wto = WeakTopologicalOrder.build(
+                cfg.getExit(), cfg.getNodes(), cfg::getPredsOf);
+        stabilize(wto.getElements(), node -> {
+            stats.countIteration();
+            Fact out = analysis.newInitialFact();
+            for (Node succ : cfg.getSuccsOf(node)) {
+                meetInto(result.getInFact(succ), out);
+            }
+            result.setOutFact(node, out);
+            return transferNode(node, out, result.getInFact(node));
+        });
+    }
+
+    private void stabilize(List<Element<Node>> elements, Update<Node> update) {
+        for (Element<Node> element : elements) {
+            if (element.isComponent()) {
+                update.apply(element.head());
+                do {
+                    stabilize(element.body(), update);
+                } while (update.apply(element.head()));
+            } else {
+                update.apply(element.head());
+            }
+        }
+    }
+
+    /**
+     * Recomputes the facts of a node.
+     */
+    @FunctionalInterface
+    private interface Update<Node> {
+
+        /**
+         * @return true if the transferred fact of the node changed.
+         */
+        boolean apply(Node node);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGOrders;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Work-list solver which only revisits the nodes whose inputs changed.
+ * For backward analyses, nodes are numbered in post-order of the CFG and
+ * the work-list always yields the pending node with the smallest number,
+ * so successors are (mostly) stable before their predecessors are visited.
+ */
+class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        List<Node> order = CFGOrders.postOrder(cfg);
+        Map<Node, Integer> number = new HashMap<>(order.size() * 2);
+        for (int i = 0; i < order.size(); ++i) {
+            number.put(order.get(i), i);
+        }
+        // OUT facts are only ever enlarged, thus each node keeps
+        // its OUT fact across visits instead of allocating a new one
+        for (Node node : order) {
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        int pending = order.size();
+        stats.recordWorkListSize(pending);
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            --pending;
+            stats.countIteration();
+            Node node = order.get(i);
+            Fact in = result.getInFact(node);
+            boolean changed;
+            if (isIdentity(cfg, node)) {
+                // the shared fact is replaced rather than enlarged in place
+                Fact out = analysis.newInitialFact();
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    meetInto(result.getInFact(succ), out);
+                }
+                changed = !out.equals(in);
+                result.setInFact(node, out);
+                result.setOutFact(node, out);
+            } else {
+                Fact out = result.getOutFact(node);
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    meetInto(result.getInFact(succ), out);
+                }
+                changed = transferNode(node, out, in);
+            }
+            if (changed) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    int p = number.get(pred);
+                    if (!workList.get(p)) {
+                        workList.set(p);
+                        ++pending;
+                    }
+                }
+                stats.recordWorkListSize(pending);
+            }
+        }
+    }
+}
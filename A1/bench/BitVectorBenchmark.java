@@ -0,0 +1,158 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Micro-benchmark of {@link VarBitSetFact} against {@link SetFact}. For
+ * the variables of each application method, two facts of each kind are
+ * filled with the same random variables, and the fact operations used by
+ * the solvers are timed on them after warm-up rounds.
+ * <p>
+ * Like {@code vector/}, this directory is kept out of the default sources.
+ * The arguments are the options of Tai-e for building the world, e.g.,
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp ... \
+ *         pascal.taie.analysis.dataflow.fact.BitVectorBenchmark -cp program -m Main
+ * </pre>
+ * and the scalar kernels are measured by adding
+ * {@code -Dpascal.taie.bitvector.simd=false}.
+ */
+public class BitVectorBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int ROUNDS = 10;
+
+    /**
+     * Keeps the JIT compiler from eliminating the measured operations.
+     */
+    private static long sink;
+
+    public static void main(String[] args) {
+        Main.buildWorld(args);
+        List<List<Var>> methods = World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(m -> m.getIR().getVars())
+                .filter(vars -> !vars.isEmpty())
+                .toList();
+        System.out.printf("%d methods, %s%n", methods.size(),
+                BitKernels.INSTANCE.getClass().getSimpleName());
+        List<SetFact<Var>> sets = fill(methods, SetFact::new);
+        List<SetFact<Var>> bits = fill(methods, VarBitSetFact::new);
+        System.out.printf("%-10s %12s %16s %8s%n",
+                "operation", "SetFact ns", "VarBitSetFact ns", "speedup");
+        operations().forEach((name, op) -> {
+            double setTime = measure(sets, op);
+            double bitTime = measure(bits, op);
+            System.out.printf("%-10s %12.1f %16.1f %7.2fx%n",
+                    name, setTime, bitTime, setTime / bitTime);
+        });
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    /**
+     * @return two facts for each method, which contain each variable of
+     * the method with probability 1/2. The variables are drawn from the
+     * same seed for each kind of facts.
+     */
+    private static List<SetFact<Var>> fill(
+            List<List<Var>> methods, Supplier<SetFact<Var>> factory) {
+        Random random = new Random(0);
+        List<SetFact<Var>> facts = new ArrayList<>(methods.size() * 2);
+        for (List<Var> vars : methods) {
+            for (int i = 0; i < 2; ++i) {
+                SetFact<Var> fact = factory.get();
+                for (Var var : vars) {
+                    if (random.nextBoolean()) {
+                        fact.add(var);
+                    }
+                }
+                facts.add(fact);
+            }
+        }
+        return facts;
+    }
+
+    /**
+     * @return the operations of the solvers, each applied on a pair of
+     * facts, which are left unchanged.
+     */
+    private static Map<String, ToIntBiFunction<SetFact<Var>, SetFact<Var>>> operations() {
+        Map<String, ToIntBiFunction<SetFact<Var>, SetFact<Var>>> ops = new LinkedHashMap<>();
+        ops.put("copy", (a, b) -> a.copy().isEmpty() ? 0 : 1);
+        ops.put("union", (a, b) -> a.copy().union(b) ? 1 : 0);
+        ops.put("intersect", (a, b) -> a.copy().intersect(b) ? 1 : 0);
+        ops.put("removeAll", (a, b) -> {
+            SetFact<Var> c = a.copy();
+            return (c instanceof VarBitSetFact bitFact ?
+                    bitFact.removeAll(b) : c.removeIf(b::contains)) ? 1 : 0;
+        });
+        ops.put("equals", (a, b) -> a.equals(b) ? 1 : 0);
+        ops.put("set", (a, b) -> {
+            SetFact<Var> c = a.copy();
+            c.set(b);
+            return c.isEmpty() ? 0 : 1;
+        });
+        return ops;
+    }
+
+    /**
+     * @return average time (in nanoseconds) of given operation on the
+     * pairs of facts, after the warm-up rounds.
+     */
+    private static double measure(List<SetFact<Var>> facts,
+                                  ToIntBiFunction<SetFact<Var>, SetFact<Var>> op) {
+        for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+            run(facts, op);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; ++round) {
+            run(facts, op);
+        }
+        long ops = (long) ROUNDS * (facts.size() / 2);
+        return (double) (System.nanoTime() - start) / Math.max(ops, 1);
+    }
+
+    private static void run(List<SetFact<Var>> facts,
+                            ToIntBiFunction<SetFact<Var>, SetFact<Var>> op) {
+        long sum = 0;
+        for (int i = 0; i + 1 < facts.size(); i += 2) {
+            sum += op.applyAsInt(facts.get(i), facts.get(i + 1));
+        }
+        sink += sum;
+    }
+}
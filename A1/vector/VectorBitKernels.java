@@ -0,0 +1,112 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of {@link BitKernels} with the Vector API. It must only
+ * be loaded via {@link BitKernels#INSTANCE}, which falls back to
+ * {@link ScalarBitKernels} when this class or {@code jdk.incubator.vector}
+ * is unavailable. This file is kept out of the default sources, as it only
+ * compiles with {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorBitKernels implements BitKernels {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private final ScalarBitKernels tail = new ScalarBitKernels();
+
+    @Override
+    public boolean or(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from);
+             i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, dst, i);
+            LongVector res = old.or(LongVector.fromArray(SPECIES, src, i));
+            changed |= old.compare(VectorOperators.NE, res).anyTrue();
+            res.intoArray(dst, i);
+        }
+        return tail.or(src, dst, i, to) | changed;
+    }
+
+    @Override
+    public boolean and(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from);
+             i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, dst, i);
+            LongVector res = old.and(LongVector.fromArray(SPECIES, src, i));
+            changed |= old.compare(VectorOperators.NE, res).anyTrue();
+            res.intoArray(dst, i);
+        }
+        return tail.and(src, dst, i, to) | changed;
+    }
+
+    @Override
+    public boolean andNot(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from);
+             i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, dst, i);
+            LongVector res = old.lanewise(VectorOperators.AND_NOT,
+                    LongVector.fromArray(SPECIES, src, i));
+            changed |= old.compare(VectorOperators.NE, res).anyTrue();
+            res.intoArray(dst, i);
+        }
+        return tail.andNot(src, dst, i, to) | changed;
+    }
+
+    @Override
+    public boolean copy(long[] src, long[] dst, int from, int to) {
+        boolean changed = false;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from);
+             i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, dst, i);
+            LongVector res = LongVector.fromArray(SPECIES, src, i);
+            changed |= old.compare(VectorOperators.NE, res).anyTrue();
+            res.intoArray(dst, i);
+        }
+        return tail.copy(src, dst, i, to) | changed;
+    }
+
+    @Override
+    public boolean equals(long[] a, long[] b, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from);
+             i < bound; i += SPECIES.length()) {
+            LongVector va = LongVector.fromArray(SPECIES, a, i);
+            LongVector vb = LongVector.fromArray(SPECIES, b, i);
+            if (va.compare(VectorOperators.NE, vb).anyTrue()) {
+                return false;
+            }
+        }
+        return tail.equals(a, b, i, to);
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGOrders;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Solver which collapses the CFG into basic blocks and keeps facts only
+ * at block boundaries. The transfer function of a block is the composition
+ * of the transfer functions of its nodes, and the facts of the nodes inside
+ * a block are recomputed on demand when they are queried from the result.
+ */
+class BasicBlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    BasicBlockSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        return new BlockResult<>(analysis, buildBlocks(cfg));
+    }
+
+    @Override
+    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult<Node, Fact> r = (BlockResult<Node, Fact>) result;
+        for (Block<Node> block : r.blocks) {
+            r.in[block.id] = analysis.newInitialFact();
+            r.out[block.id] = block.first() == cfg.getEntry() ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact();
+        }
+    }
+
+    @Override
+    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult<Node, Fact> r = (BlockResult<Node, Fact>) result;
+        for (Block<Node> block : r.blocks) {
+            r.in[block.id] = block.last() == cfg.getExit() ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact();
+            r.out[block.id] = analysis.newInitialFact();
+        }
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult<Node, Fact> r = (BlockResult<Node, Fact>) result;
+        // blocks are numbered in reverse post-order
+        BitSet workList = new BitSet(r.blocks.size());
+        workList.set(0, r.blocks.size());
+        int pending = r.blocks.size();
+        stats.recordWorkListSize(pending);
+        for (int b = workList.nextSetBit(0); b >= 0; b = workList.nextSetBit(0)) {
+            workList.clear(b);
+            --pending;
+            stats.countIteration();
+            Block<Node> block = r.blocks.get(b);
+            Fact in = analysis.newInitialFact();
+            for (int pred : block.preds) {
+                meetInto(r.out[pred], in);
+            }
+            r.in[b] = in;
+            if (transferBlock(block, in, r.out[b], true)) {
+                for (int succ : block.succs) {
+                    if (!workList.get(succ)) {
+                        workList.set(succ);
+                        ++pending;
+                    }
+                }
+                stats.recordWorkListSize(pending);
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult<Node, Fact> r = (BlockResult<Node, Fact>) result;
+        // visiting blocks from the highest number follows post-order
+        BitSet workList = new BitSet(r.blocks.size());
+        workList.set(0, r.blocks.size());
+        int pending = r.blocks.size();
+        stats.recordWorkListSize(pending);
+        for (int b = workList.length() - 1; b >= 0; b = workList.length() - 1) {
+            workList.clear(b);
+            --pending;
+            stats.countIteration();
+            Block<Node> block = r.blocks.get(b);
+            Fact out = analysis.newInitialFact();
+            for (int succ : block.succs) {
+                meetInto(r.in[succ], out);
+            }
+            r.out[b] = out;
+            if (transferBlock(block, out, r.in[b], false)) {
+                for (int pred : block.preds) {
+                    if (!workList.get(pred)) {
+                        workList.set(pred);
+                        ++pending;
+                    }
+                }
+                stats.recordWorkListSize(pending);
+            }
+        }
+    }
+
+    /**
+     * Applies the composed transfer function of given block.
+     *
+     * @param input  IN fact of the first node for forward analyses,
+     *               or OUT fact of the last node for backward analyses
+     * @param output fact which receives the result of the block
+     * @return true if output changed, otherwise false.
+     */
+    private boolean transferBlock(Block<Node> block, Fact input, Fact output,
+                                  boolean isForward) {
+        Fact fact = input;
+        int size = block.nodes.size();
+        for (int i = 0; i < size - 1; ++i) {
+            Node node = block.nodes.get(isForward ? i : size - 1 - i);
+            Fact next = analysis.newInitialFact();
+            transferNode(node, fact, next);
+            fact = next;
+        }
+        return transferNode(block.nodes.get(isForward ? size - 1 : 0), fact, output);
+    }
+
+    /**
+     * Partitions the nodes of given CFG into basic blocks, which are
+     * numbered in reverse post-order of their leaders. The entry and
+     * the exit always form blocks of their own.
+     */
+    private static <Node> List<Block<Node>> buildBlocks(CFG<Node> cfg) {
+        List<Node> order = CFGOrders.postOrder(cfg);
+        Collections.reverse(order);
+        Map<Node, Block<Node>> blockOf = new HashMap<>(order.size() * 2);
+        List<Block<Node>> blocks = new ArrayList<>();
+        for (Node node : order) {
+            if (blockOf.containsKey(node)) {
+                continue;
+            }
+            Block<Node> block = new Block<>(blocks.size());
+            blocks.add(block);
+            Node current = node;
+            while (true) {
+                block.nodes.add(current);
+                blockOf.put(current, block);
+                Node next = nextInBlock(cfg, current);
+                if (next == null || blockOf.containsKey(next)) {
+                    break;
+                }
+                current = next;
+            }
+        }
+        for (Block<Node> block : blocks) {
+            Set<Integer> preds = new LinkedHashSet<>();
+            cfg.getPredsOf(block.first()).forEach(pred -> preds.add(blockOf.get(pred).id));
+            Set<Integer> succs = new LinkedHashSet<>();
+            cfg.getSuccsOf(block.last()).forEach(succ -> succs.add(blockOf.get(succ).id));
+            block.preds = preds.stream().mapToInt(Integer::intValue).toArray();
+            block.succs = succs.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return blocks;
+    }
+
+    /**
+     * @return the node which follows given node in the same basic block,
+     * or null if given node ends its block.
+     */
+    private static <Node> Node nextInBlock(CFG<Node> cfg, Node node) {
+        if (node == cfg.getEntry() || cfg.getSuccsOf(node).size() != 1) {
+            return null;
+        }
+        Node next = cfg.getSuccsOf(node).iterator().next();
+        if (next == node || next == cfg.getExit() ||
+                cfg.getPredsOf(next).size() != 1) {
+            return null;
+        }
+        return next;
+    }
+
+    private static class Block<Node> {
+
+        private final int id;
+
+        private final List<Node> nodes = new ArrayList<>();
+
+        private int[] preds;
+
+        private int[] succs;
+
+        private Block(int id) {
+            this.id = id;
+        }
+
+        private Node first() {
+            return nodes.get(0);
+        }
+
+        private Node last() {
+            return nodes.get(nodes.size() - 1);
+        }
+    }
+
+    /**
+     * Data-flow result which stores facts at block boundaries, and
+     * recomputes the facts of the other nodes when they are queried.
+     * The facts of the most recently queried block are cached.
+     */
+    private static class BlockResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+        private final DataflowAnalysis<Node, Fact> analysis;
+
+        private final List<Block<Node>> blocks;
+
+        private final Map<Node, Block<Node>> blockOf;
+
+        private final Map<Node, Integer> positionOf;
+
+        /**
+         * IN facts of the first node of each block.
+         */
+        private final Fact[] in;
+
+        /**
+         * OUT facts of the last node of each block.
+         */
+        private final Fact[] out;
+
+        private volatile Expansion<Fact> expansion;
+
+        @SuppressWarnings("unchecked")
+        private BlockResult(DataflowAnalysis<Node, Fact> analysis, List<Block<Node>> blocks) {
+            this.analysis = analysis;
+            this.blocks = blocks;
+            this.blockOf = new HashMap<>();
+            this.positionOf = new HashMap<>();
+            for (Block<Node> block : blocks) {
+                for (int i = 0; i < block.nodes.size(); ++i) {
+                    blockOf.put(block.nodes.get(i), block);
+                    positionOf.put(block.nodes.get(i), i);
+                }
+            }
+            this.in = (Fact[]) new Object[blocks.size()];
+            this.out = (Fact[]) new Object[blocks.size()];
+        }
+
+        @Override
+        public Fact getInFact(Node node) {
+            Block<Node> block = blockOf.get(node);
+            if (block == null) {
+                return null;
+            }
+            int pos = positionOf.get(node);
+            return pos == 0 ? in[block.id] : expand(block).in[pos];
+        }
+
+        @Override
+        public Fact getOutFact(Node node) {
+            Block<Node> block = blockOf.get(node);
+            if (block == null) {
+                return null;
+            }
+            int pos = positionOf.get(node);
+            return pos == block.nodes.size() - 1 ?
+                    out[block.id] : expand(block).out[pos];
+        }
+
+        @Override
+        public Fact getResult(Node node) {
+            return getOutFact(node);
+        }
+
+        @Override
+        public void setInFact(Node node, Fact fact) {
+            throw new UnsupportedOperationException(
+                    "Facts of basic-block result are computed by the solver");
+        }
+
+        @Override
+        public void setOutFact(Node node, Fact fact) {
+            throw new UnsupportedOperationException(
+                    "Facts of basic-block result are computed by the solver");
+        }
+
+        /**
+         * Replays the transfer functions of the nodes in given block.
+         */
+        @SuppressWarnings("unchecked")
+        private Expansion<Fact> expand(Block<Node> block) {
+            Expansion<Fact> e = expansion;
+            if (e != null && e.blockId == block.id) {
+                return e;
+            }
+            int size = block.nodes.size();
+            Fact[] ins = (Fact[]) new Object[size];
+            Fact[] outs = (Fact[]) new Object[size];
+            if (analysis.isForward()) {
+                Fact fact = in[block.id];
+                for (int i = 0; i < size; ++i) {
+                    ins[i] = fact;
+                    if (i == size - 1) {
+                        outs[i] = out[block.id];
+                    } else {
+                        outs[i] = analysis.newInitialFact();
+                        analysis.transferNode(block.nodes.get(i), fact, outs[i]);
+                        fact = outs[i];
+                    }
+                }
+            } else {
+                Fact fact = out[block.id];
+                for (int i = size - 1; i >= 0; --i) {
+                    outs[i] = fact;
+                    if (i == 0) {
+                        ins[i] = in[block.id];
+                    } else {
+                        ins[i] = analysis.newInitialFact();
+                        analysis.transferNode(block.nodes.get(i), fact, ins[i]);
+                        fact = ins[i];
+                    }
+                }
+            }
+            e = new Expansion<>(block.id, ins, outs);
+            expansion = e;
+            return e;
+        }
+    }
+
+    private record Expansion<Fact>(int blockId, Fact[] in, Fact[] out) {
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+/**
+ * Solver which reports how many transfers the WTO solver saves compared
+ * with the FIFO work-list solver. Each CFG is also solved by
+ * {@link FIFOSolver}, whose result is discarded, and the transfers of the
+ * two runs are logged next to each other. The result of {@link WTOSolver}
+ * is returned.
+ * <p>
+ * The work of the two runs is counted by the {@link SolverStats} of IDs
+ * {@code <analysis>/wto} and {@code <analysis>/fifo}, which also give
+ * the totals over all methods.
+ */
+class ComparingSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(ComparingSolver.class);
+
+    private final WTOSolver<Node, Fact> wto;
+
+    private final FIFOSolver<Node, Fact> fifo;
+
+    ComparingSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+        wto = new WTOSolver<>(analysis, SolverStats.of(stats.getAnalysisId() + "/wto"));
+        fifo = new FIFOSolver<>(analysis, SolverStats.of(stats.getAnalysisId() + "/fifo"));
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        long wtoTransfers = wto.stats.getTransfers();
+        wto.doSolveForward(cfg, result);
+        report(cfg, wto.stats.getTransfers() - wtoTransfers);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        long wtoTransfers = wto.stats.getTransfers();
+        wto.doSolveBackward(cfg, result);
+        report(cfg, wto.stats.getTransfers() - wtoTransfers);
+    }
+
+    /**
+     * Solves given CFG by the FIFO solver, and logs its transfers next
+     * to those of the WTO solver. As the counters are shared by the
+     * solvers of the analysis, the counts of a method also include
+     * transfers of runs on other threads, if any.
+     */
+    private void report(CFG<Node> cfg, long wtoTransfers) {
+        long fifoTransfers = fifo.stats.getTransfers();
+        fifo.solve(cfg);
+        fifoTransfers = fifo.stats.getTransfers() - fifoTransfers;
+        logger.info("{} transfers on {}: {} by WTO, {} by FIFO, {} saved" +
+                        " ({} by WTO, {} by FIFO in total)",
+                stats.getAnalysisId(), cfg.getMethod(), wtoTransfers, fifoTransfers,
+                fifoTransfers - wtoTransfers,
+                wto.stats.getTransfers(), fifo.stats.getTransfers());
+    }
+}
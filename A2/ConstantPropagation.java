@@ -23,7 +23,10 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.IdentityTransfer;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
@@ -33,13 +36,81 @@ import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 
+import java.util.Set;
+
 public class ConstantPropagation extends
-        AbstractDataflowAnalysis<Stmt, CPFact> {
+        AbstractDataflowAnalysis<Stmt, CPFact> implements IdentityTransfer<Stmt> {
 
     public static final String ID = "constprop";
 
+    private final AnalysisConfig config;
+
+    /**
+     * The method whose evaluators are compiled, or null for the instance
+     * shared by all methods, see {@link #forMethod(IR)}.
+     */
+    private final IR ir;
+
+    /**
+     * Compiled evaluators of the right-hand sides of the definition
+     * statements of {@link #ir}, indexed by {@link Stmt#getIndex()}.
+     */
+    private final Evaluator[] evaluators;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        this.config = config;
+        this.ir = null;
+        this.evaluators = null;
+    }
+
+    private ConstantPropagation(AnalysisConfig config, IR ir) {
+        super(config);
+        this.config = config;
+        this.ir = ir;
+        this.evaluators = new Evaluator[ir.getStmts().size()];
+        CFG<Stmt> cfg = ir.hasResult(CFGBuilder.ID) ? ir.getResult(CFGBuilder.ID) : null;
+        for (Stmt stmt : ir) {
+            if (stmt instanceof DefinitionStmt<?, ?> def &&
+                    def.getLValue() instanceof Var x && canHoldInt(x)) {
+                evaluators[stmt.getIndex()] = Evaluators.compile(def.getRValue(),
+                        var -> getLiteralOperand(cfg, stmt, var));
+            }
+        }
+    }
+
+    /**
+     * @return the value of given variable at given statement, if the only
+     * predecessor of the statement assigns an int literal to the variable
+     * (which is how the IR loads constant operands into temporary
+     * variables), otherwise null.
+     */
+    private static Value getLiteralOperand(CFG<Stmt> cfg, Stmt stmt, Var var) {
+        if (cfg == null) {
+            return null;
+        }
+        Set<Stmt> preds = cfg.getPredsOf(stmt);
+        if (preds.size() == 1 &&
+                preds.iterator().next() instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() == var && canHoldInt(var) &&
+                def.getRValue() instanceof IntLiteral literal) {
+            return Values.makeConstant(literal.getValue());
+        }
+        return null;
+    }
+
+    /**
+     * @return an instance of this analysis which compiles the evaluators
+     * of given method once. The evaluators are released together with
+     * the instance, e.g., after the method is solved.
+     */
+    public ConstantPropagation forMethod(IR ir) {
+        return this.ir == ir ? this : new ConstantPropagation(config, ir);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        return this.ir == ir ? super.analyze(ir) : forMethod(ir).analyze(ir);
     }
 
     @Override
@@ -50,7 +121,7 @@ public class ConstantPropagation extends
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - check
-        CPFact fact = new CPFact();
+        CPFact fact = new PackedCPFact();
         cfg.getIR().getParams().forEach(var -> {
             if(canHoldInt(var)) {
                 fact.update(var, Value.getNAC());
@@ -62,12 +133,17 @@ public class ConstantPropagation extends
     @Override
     public CPFact newInitialFact() {
         // TODO - check
-        return new CPFact();
+        return new PackedCPFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
         // TODO - check
+        if (fact instanceof PackedCPFact packedFact &&
+                target instanceof PackedCPFact packedTarget) {
+            packedTarget.meetFrom(packedFact);
+            return;
+        }
         fact.forEach(((k, v) -> {
             target.update(k, meetValue(target.get(k),v));
         }));
@@ -86,7 +162,7 @@ public class ConstantPropagation extends
         if (v1.isConstant() && v2.isConstant()) {
             if (v1.getConstant() == v2.getConstant()) {
                 // c 交 c = c
-                return Value.makeConstant(v1.getConstant());
+                return v1;
             } else {
                 // c1 交 c2 = NAC
                 return Value.getNAC();
@@ -94,18 +170,17 @@ public class ConstantPropagation extends
         }
 
         // UNDEF 交 v = v
-        if (v1.isUndef() || v2.isUndef()) {
-            if (v1.isConstant()) return Value.makeConstant(v1.getConstant());
-            if (v2.isConstant()) return Value.makeConstant(v2.getConstant());
-        }
-
-        return Value.getUndef();
+        return v1.isUndef() ? v2 : v1;
     }
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - check
         // 使用 canHoldInt 来过滤 stmt 中的 Var
+        if (in instanceof PackedCPFact packedIn &&
+                out instanceof PackedCPFact packedOut) {
+            return transferPacked(stmt, packedIn, packedOut);
+        }
         // 是否改变
         boolean change = false;
 
@@ -117,7 +192,7 @@ public class ConstantPropagation extends
             LValue left = def.getLValue();
             if(left instanceof Var x){
                 if(canHoldInt(x)){
-                    Value res = evaluate(def.getRValue(), in);
+                    Value res = getEvaluator(def).evaluate(in);
                     change |= out.update(x, res);
                 }
             }
@@ -125,6 +200,42 @@ public class ConstantPropagation extends
         return change;
     }
 
+    /**
+     * Statements which define no int variable do not change the facts.
+     */
+    @Override
+    public boolean isIdentity(Stmt stmt) {
+        return !(stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var x && canHoldInt(x));
+    }
+
+    /**
+     * Packed version of {@link #transferNode}: IN is copied into OUT with
+     * the defined variable (if any) updated, in one pass over the slots.
+     */
+    private boolean transferPacked(Stmt stmt, PackedCPFact in, PackedCPFact out) {
+        if (stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var x && canHoldInt(x)) {
+            Value res = getEvaluator(def).evaluate(in);
+            return out.assign(in, x, PackedCPFact.encode(res));
+        }
+        return out.assign(in, null, PackedCPFact.UNDEF);
+    }
+
+    /**
+     * @return the evaluator of the right-hand side of given statement.
+     * It is looked up by statement index if the statement belongs to
+     * the method of this instance, otherwise it is compiled anew.
+     */
+    public Evaluator getEvaluator(DefinitionStmt<?, ?> stmt) {
+        int i = stmt.getIndex();
+        if (evaluators != null && i >= 0 && i < evaluators.length &&
+                evaluators[i] != null && ir.getStmt(i) == stmt) {
+            return evaluators[i];
+        }
+        return Evaluators.compile(stmt.getRValue());
+    }
+
     /**
      * @return true if the given variable can hold integer value, otherwise false.
      */
@@ -153,14 +264,11 @@ public class ConstantPropagation extends
     public static Value evaluate(Exp exp, CPFact in) {
         // TODO - check
         if (exp instanceof Var var) {
-            if(in.get(var).isConstant()){
-                return Value.makeConstant(in.get(var).getConstant());
-            }
             return in.get(var);
         }
 
         if (exp instanceof IntLiteral intLiteral) {
-            return Value.makeConstant(intLiteral.getValue());
+            return Values.makeConstant(intLiteral.getValue());
         }
 
         if (exp instanceof BinaryExp binaryExp) {
@@ -193,51 +301,51 @@ public class ConstantPropagation extends
                 if (op instanceof ArithmeticExp.Op arithmeticOp) {
                     switch (arithmeticOp) {
                         case ADD:
-                            return Value.makeConstant(int1 + int2);
+                            return Values.makeConstant(int1 + int2);
                         case SUB:
-                            return Value.makeConstant(int1 - int2);
+                            return Values.makeConstant(int1 - int2);
                         case MUL:
-                            return Value.makeConstant(int1 * int2);
+                            return Values.makeConstant(int1 * int2);
                         case DIV:
-                            return Value.makeConstant(int1 / int2);
+                            return Values.makeConstant(int1 / int2);
                         case REM:
-                            return Value.makeConstant(int1 % int2);
+                            return Values.makeConstant(int1 % int2);
                     }
                 }
                 if (op instanceof ShiftExp.Op shiftOp) {
                     switch (shiftOp) {
                         case SHL:
-                            return Value.makeConstant(int1 << int2);
+                            return Values.makeConstant(int1 << int2);
                         case SHR:
-                            return Value.makeConstant(int1 >> int2);
+                            return Values.makeConstant(int1 >> int2);
                         case USHR:
-                            return Value.makeConstant(int1 >>> int2);
+                            return Values.makeConstant(int1 >>> int2);
                     }
                 }
                 if (op instanceof BitwiseExp.Op bitwiseOp) {
                     switch (bitwiseOp) {
                         case OR:
-                            return Value.makeConstant(int1 | int2);
+                            return Values.makeConstant(int1 | int2);
                         case AND:
-                            return Value.makeConstant(int1 & int2);
+                            return Values.makeConstant(int1 & int2);
                         case XOR:
-                            return Value.makeConstant(int1 ^ int2);
+                            return Values.makeConstant(int1 ^ int2);
                     }
                 }
                 if (op instanceof ConditionExp.Op conditionOp) {
                     switch (conditionOp) {
                         case EQ:
-                            return Value.makeConstant(int1 == int2 ? 1:0);
+                            return Values.makeConstant(int1 == int2 ? 1:0);
                         case NE:
-                            return Value.makeConstant(int1 != int2 ? 1:0);
+                            return Values.makeConstant(int1 != int2 ? 1:0);
                         case GE:
-                            return Value.makeConstant(int1 >= int2 ? 1:0);
+                            return Values.makeConstant(int1 >= int2 ? 1:0);
                         case GT:
-                            return Value.makeConstant(int1 > int2 ? 1:0);
+                            return Values.makeConstant(int1 > int2 ? 1:0);
                         case LE:
-                            return Value.makeConstant(int1 <= int2 ? 1:0);
+                            return Values.makeConstant(int1 <= int2 ? 1:0);
                         case LT:
-                            return Value.makeConstant(int1 < int2 ? 1:0);
+                            return Values.makeConstant(int1 < int2 ? 1:0);
                     }
                 }
             }
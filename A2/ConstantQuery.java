@@ -0,0 +1,239 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Demand-driven constness queries, as a cheaper alternative to
+ * {@link ConstantPropagation} when only a few program points are
+ * of interest.
+ * <p>
+ * The value of a variable at a program point is the meet of the values
+ * of its reaching definitions, which are found by exploring the CFG
+ * backward from the queried point. The values of these definitions
+ * are then solved together with the definitions they depend on (and only
+ * these definitions), so the answers are the same as the ones of
+ * {@link ConstantPropagation}. Reaching definitions and the values of
+ * definitions are memoized. The queries of a method share one instance,
+ * which is not thread-safe.
+ */
+public class ConstantQuery {
+
+    public static final String ID = "constprop-query";
+
+    private final CFG<Stmt> cfg;
+
+    private final ConstantPropagation cp;
+
+    /**
+     * Values of the variables at the OUT of the entry.
+     */
+    private final CPFact boundary;
+
+    private final Map<Stmt, Map<Var, ReachingDefs>> reachingDefs = new HashMap<>();
+
+    /**
+     * Values of the solved definitions.
+     */
+    private final Map<Stmt, Value> defValues = new HashMap<>();
+
+    public ConstantQuery(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        this.cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID))
+                .forMethod(cfg.getIR());
+        this.boundary = cp.newBoundaryFact(cfg);
+    }
+
+    /**
+     * @return the query instance of the method of given IR,
+     * which is created on first request. The CFG must have been built.
+     */
+    public static ConstantQuery of(IR ir) {
+        if (!ir.hasResult(ID)) {
+            ir.storeResult(ID, new ConstantQuery(ir.getResult(CFGBuilder.ID)));
+        }
+        return ir.getResult(ID);
+    }
+
+    /**
+     * @return the value of var at the IN of stmt.
+     */
+    public Value getValue(Stmt stmt, Var var) {
+        if (!ConstantPropagation.canHoldInt(var)) {
+            return Value.getUndef();
+        }
+        ReachingDefs rd = getReachingDefs(stmt, var);
+        solve(rd.defs());
+        return meet(var, rd, defValues);
+    }
+
+    /**
+     * @return true if var holds a constant at the IN of stmt, otherwise false.
+     */
+    public boolean isConstant(Stmt stmt, Var var) {
+        return getValue(stmt, var).isConstant();
+    }
+
+    /**
+     * Solves the values of given definitions and the definitions
+     * they (transitively) depend on.
+     */
+    private void solve(List<Stmt> roots) {
+        // collects the unsolved definitions and their def-use chains
+        Set<Stmt> closure = new LinkedHashSet<>();
+        Map<Stmt, List<Stmt>> users = new HashMap<>();
+        Deque<Stmt> stack = new ArrayDeque<>();
+        for (Stmt def : roots) {
+            if (!defValues.containsKey(def) && closure.add(def)) {
+                stack.push(def);
+            }
+        }
+        if (closure.isEmpty()) {
+            return;
+        }
+        while (!stack.isEmpty()) {
+            Stmt def = stack.pop();
+            for (Var operand : getOperands(def)) {
+                for (Stmt d : getReachingDefs(def, operand).defs()) {
+                    if (!defValues.containsKey(d)) {
+                        users.computeIfAbsent(d, k -> new ArrayList<>()).add(def);
+                        if (closure.add(d)) {
+                            stack.push(d);
+                        }
+                    }
+                }
+            }
+        }
+        // optimistic iteration, starting from UNDEF as the dense solvers
+        Map<Stmt, Value> values = new HashMap<>();
+        Deque<Stmt> workList = new ArrayDeque<>(closure);
+        Set<Stmt> inWorkList = new HashSet<>(closure);
+        while (!workList.isEmpty()) {
+            Stmt def = workList.poll();
+            inWorkList.remove(def);
+            CPFact in = new CPFact();
+            for (Var operand : getOperands(def)) {
+                ReachingDefs rd = getReachingDefs(def, operand);
+                in.update(operand, meet(operand, rd, values));
+            }
+            Value value = cp.getEvaluator((DefinitionStmt<?, ?>) def).evaluate(in);
+            if (!value.equals(values.getOrDefault(def, Value.getUndef()))) {
+                values.put(def, value);
+                for (Stmt user : users.getOrDefault(def, List.of())) {
+                    if (inWorkList.add(user)) {
+                        workList.add(user);
+                    }
+                }
+            }
+        }
+        for (Stmt def : closure) {
+            defValues.put(def, values.getOrDefault(def, Value.getUndef()));
+        }
+    }
+
+    /**
+     * Meets the values of the reaching definitions of var, where values
+     * of the definitions being solved are taken from given map.
+     */
+    private Value meet(Var var, ReachingDefs rd, Map<Stmt, Value> values) {
+        Value result = rd.fromEntry() ? boundary.get(var) : Value.getUndef();
+        for (Stmt def : rd.defs()) {
+            Value value = defValues.get(def);
+            if (value == null) {
+                value = values.getOrDefault(def, Value.getUndef());
+            }
+            result = cp.meetValue(result, value);
+        }
+        return result;
+    }
+
+    /**
+     * @return the definitions of var which reach the IN of stmt.
+     */
+    private ReachingDefs getReachingDefs(Stmt stmt, Var var) {
+        Map<Var, ReachingDefs> rds = reachingDefs.computeIfAbsent(
+                stmt, s -> new HashMap<>());
+        ReachingDefs rd = rds.get(var);
+        if (rd == null) {
+            List<Stmt> defs = new ArrayList<>();
+            boolean fromEntry = false;
+            Set<Stmt> visited = new HashSet<>();
+            Deque<Stmt> stack = new ArrayDeque<>(cfg.getPredsOf(stmt));
+            while (!stack.isEmpty()) {
+                Stmt node = stack.pop();
+                if (!visited.add(node)) {
+                    continue;
+                }
+                if (cfg.isEntry(node)) {
+                    fromEntry = true;
+                } else if (defines(node, var)) {
+                    defs.add(node);
+                } else {
+                    cfg.getPredsOf(node).forEach(stack::push);
+                }
+            }
+            rd = new ReachingDefs(defs, fromEntry);
+            rds.put(var, rd);
+        }
+        return rd;
+    }
+
+    private static boolean defines(Stmt stmt, Var var) {
+        return stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() == var;
+    }
+
+    /**
+     * @return the int variables used by given definition.
+     */
+    private static List<Var> getOperands(Stmt def) {
+        List<Var> operands = new ArrayList<>();
+        for (RValue use : def.getUses()) {
+            if (use instanceof Var v && ConstantPropagation.canHoldInt(v)) {
+                operands.add(v);
+            }
+        }
+        return operands;
+    }
+
+    private record ReachingDefs(List<Stmt> defs, boolean fromEntry) {
+    }
+}
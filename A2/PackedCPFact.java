@@ -0,0 +1,343 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} which stores the lattice value of each variable as a
+ * packed long in an array indexed by {@link Var#getIndex()}, so all
+ * variables in one fact must belong to the same method.
+ * <p>
+ * The high 32 bits of a packed value are the tag and the low 32 bits
+ * are the constant, and UNDEF is encoded as 0 so that a fresh array
+ * represents the fact in which every variable is UNDEF.
+ * <p>
+ * The inherited map is never used, so a packed fact is only equal to
+ * other packed facts. {@link ConstantPropagation} creates packed facts
+ * only, and its facts must not be compared with plain {@link CPFact}s.
+ */
+public class PackedCPFact extends CPFact {
+
+    public static final long UNDEF = 0L;
+
+    private static final long CONSTANT_TAG = 1L << 32;
+
+    public static final long NAC = 2L << 32;
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * Variables of the containing method, used to map slots back to
+     * {@link Var}s. It is bound lazily by the first variable updated.
+     */
+    private List<Var> vars;
+
+    private long[] values;
+
+    public PackedCPFact() {
+        this.values = EMPTY;
+    }
+
+    private PackedCPFact(List<Var> vars, long[] values) {
+        this.vars = vars;
+        this.values = values;
+    }
+
+    public static long encode(Value value) {
+        if (value.isConstant()) {
+            return makeConstant(value.getConstant());
+        }
+        return value.isNAC() ? NAC : UNDEF;
+    }
+
+    public static Value decode(long value) {
+        if (value == UNDEF) {
+            return Value.getUndef();
+        }
+        if (value == NAC) {
+            return Value.getNAC();
+        }
+        return Values.makeConstant(getConstant(value));
+    }
+
+    public static long makeConstant(int constant) {
+        return CONSTANT_TAG | (constant & 0xFFFFFFFFL);
+    }
+
+    public static boolean isConstant(long value) {
+        return (value & ~0xFFFFFFFFL) == CONSTANT_TAG;
+    }
+
+    public static int getConstant(long value) {
+        return (int) value;
+    }
+
+    /**
+     * Meets two packed values.
+     */
+    public static long meet(long v1, long v2) {
+        if (v1 == v2 || v2 == UNDEF) {
+            return v1;
+        }
+        if (v1 == UNDEF) {
+            return v2;
+        }
+        // different constants, or one of them is NAC
+        return NAC;
+    }
+
+    private void bind(Var var) {
+        if (vars == null) {
+            vars = var.getMethod().getIR().getVars();
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (values.length < size) {
+            int capacity = vars != null ? Math.max(size, vars.size()) : size;
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * @return the packed value of given variable.
+     */
+    public long getPacked(Var var) {
+        int i = var.getIndex();
+        return i < values.length ? values[i] : UNDEF;
+    }
+
+    /**
+     * Updates the packed value of given variable.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean updatePacked(Var var, long value) {
+        bind(var);
+        int i = var.getIndex();
+        if (i >= values.length) {
+            if (value == UNDEF) {
+                return false;
+            }
+            ensureCapacity(i + 1);
+        }
+        long old = values[i];
+        values[i] = value;
+        return old != value;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean meetFrom(PackedCPFact fact) {
+        if (vars == null) {
+            vars = fact.vars;
+        }
+        ensureCapacity(fact.values.length);
+        boolean changed = false;
+        for (int i = 0; i < fact.values.length; ++i) {
+            long old = values[i];
+            long v = meet(old, fact.values[i]);
+            if (v != old) {
+                values[i] = v;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the defined variables of base into this fact, and maps
+     * variable def (if not null) to defValue, i.e., applies the transfer
+     * function of a definition statement in one pass. Like
+     * {@link #copyFrom}, variables undefined in base keep their values.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean assign(PackedCPFact base, Var def, long defValue) {
+        if (vars == null) {
+            vars = base.vars;
+        }
+        int defIndex = -1;
+        if (def != null) {
+            bind(def);
+            defIndex = def.getIndex();
+        }
+        int size = Math.max(base.values.length, defIndex + 1);
+        ensureCapacity(size);
+        boolean changed = false;
+        for (int i = 0; i < size; ++i) {
+            long v = i == defIndex ? defValue :
+                    i < base.values.length ? base.values[i] : UNDEF;
+            if (i != defIndex && v == UNDEF) {
+                continue;
+            }
+            if (v != values[i]) {
+                values[i] = v;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public Value get(Var var) {
+        return decode(getPacked(var));
+    }
+
+    @Override
+    public boolean update(Var var, Value value) {
+        return updatePacked(var, encode(value));
+    }
+
+    @Override
+    public Value remove(Var var) {
+        int i = var.getIndex();
+        if (i >= values.length || values[i] == UNDEF) {
+            return null;
+        }
+        Value old = decode(values[i]);
+        values[i] = UNDEF;
+        return old;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (fact instanceof PackedCPFact that) {
+            if (vars == null) {
+                vars = that.vars;
+            }
+            ensureCapacity(that.values.length);
+            boolean changed = false;
+            for (int i = 0; i < that.values.length; ++i) {
+                long v = that.values[i];
+                if (v != UNDEF && v != values[i]) {
+                    values[i] = v;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        boolean[] changed = {false};
+        fact.forEach((var, value) -> changed[0] |= update(var, value));
+        return changed[0];
+    }
+
+    @Override
+    public PackedCPFact copy() {
+        return new PackedCPFact(vars, values.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, UNDEF);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long v : values) {
+            if (v != UNDEF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IntStream definedIndexes() {
+        return IntStream.range(0, values.length).filter(i -> values[i] != UNDEF);
+    }
+
+    @Override
+    public Set<Var> keySet() {
+        Set<Var> keys = new LinkedHashSet<>();
+        definedIndexes().forEach(i -> keys.add(vars.get(i)));
+        return keys;
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return definedIndexes().mapToObj(i ->
+                new AbstractMap.SimpleImmutableEntry<>(vars.get(i), decode(values[i])));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != UNDEF) {
+                action.accept(vars.get(i), decode(values[i]));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PackedCPFact that)) {
+            return false;
+        }
+        int size = Math.max(values.length, that.values.length);
+        for (int i = 0; i < size; ++i) {
+            long v1 = i < values.length ? values[i] : UNDEF;
+            long v2 = i < that.values.length ? that.values[i] : UNDEF;
+            if (v1 != v2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != UNDEF) {
+                hash += i ^ Long.hashCode(values[i]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((var, value) -> joiner.add(var + "=" + value));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solver which decomposes the CFG into strongly connected components,
+ * and solves the components level by level along the condensation DAG:
+ * the facts flowing into a component are final once all components of
+ * the previous levels are solved, so the components of the same level
+ * are independent and are solved in parallel on the fork-join pool.
+ * Each component is solved by a work list restricted to its nodes.
+ * <p>
+ * This pays off for huge methods (e.g., generated parsers) whose
+ * condensation DAG is wide. The transfer and meet functions of the
+ * analysis must be safe to run concurrently on different facts.
+ */
+class ParallelSCCSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    /**
+     * Levels with fewer nodes than this threshold are solved
+     * sequentially, as forking does not pay off.
+     */
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger(
+            "pascal.taie.dataflow.parallel.threshold", 256);
+
+    ParallelSCCSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        new Run(cfg, result, true).solve();
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        new Run(cfg, result, false).solve();
+    }
+
+    /**
+     * State of solving one CFG. Facts are kept in arrays indexed by node
+     * number during solving, as components write disjoint slots, and are
+     * written back to the result at the end.
+     */
+    private class Run {
+
+        private final CFG<Node> cfg;
+
+        private final DataflowResult<Node, Fact> result;
+
+        private final boolean forward;
+
+        private final List<Node> nodes;
+
+        /**
+         * Sources and targets of each node along the analysis direction.
+         */
+        private final int[][] sources;
+
+        private final int[][] targets;
+
+        /**
+         * Facts flowing into and out of each node along the analysis
+         * direction, i.e., IN and OUT for forward analyses, and OUT
+         * and IN for backward analyses.
+         */
+        private final Fact[] inputs;
+
+        private final Fact[] outputs;
+
+        private final int boundary;
+
+        /**
+         * Component of each node.
+         */
+        private int[] component;
+
+        /**
+         * Position of each node in its component.
+         */
+        private int[] position;
+
+        @SuppressWarnings("unchecked")
+        private Run(CFG<Node> cfg, DataflowResult<Node, Fact> result, boolean forward) {
+            this.cfg = cfg;
+            this.result = result;
+            this.forward = forward;
+            nodes = new ArrayList<>(cfg.getNodes());
+            Map<Node, Integer> number = new HashMap<>(nodes.size() * 2);
+            for (int i = 0; i < nodes.size(); ++i) {
+                number.put(nodes.get(i), i);
+            }
+            sources = new int[nodes.size()][];
+            targets = new int[nodes.size()][];
+            inputs = (Fact[]) new Object[nodes.size()];
+            outputs = (Fact[]) new Object[nodes.size()];
+            for (int i = 0; i < nodes.size(); ++i) {
+                Node node = nodes.get(i);
+                sources[i] = (forward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node))
+                        .stream().mapToInt(number::get).toArray();
+                targets[i] = (forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node))
+                        .stream().mapToInt(number::get).toArray();
+                inputs[i] = analysis.newInitialFact();
+                outputs[i] = forward ? result.getOutFact(node) : result.getInFact(node);
+            }
+            boundary = number.get(forward ? cfg.getEntry() : cfg.getExit());
+        }
+
+        private void solve() {
+            List<List<int[]>> levels = computeLevels();
+            for (List<int[]> level : levels) {
+                int size = level.stream().mapToInt(c -> c.length).sum();
+                if (level.size() == 1 || size < PARALLEL_THRESHOLD) {
+                    level.forEach(this::solveComponent);
+                } else {
+                    List<RecursiveAction> tasks = new ArrayList<>(level.size());
+                    for (int[] c : level) {
+                        tasks.add(new RecursiveAction() {
+                            @Override
+                            protected void compute() {
+                                solveComponent(c);
+                            }
+                        });
+                    }
+                    RecursiveAction.invokeAll(tasks);
+                }
+            }
+            for (int i = 0; i < nodes.size(); ++i) {
+                Node node = nodes.get(i);
+                result.setInFact(node, forward ? inputs[i] : outputs[i]);
+                result.setOutFact(node, forward ? outputs[i] : inputs[i]);
+            }
+        }
+
+        /**
+         * Solves the nodes of a component, whose sources outside
+         * the component have been solved. A component of one node
+         * without a self-loop needs only one visit; the nodes of other
+         * components are kept in an int queue, and whether they are in
+         * the queue is recorded by their positions in the component.
+         */
+        private void solveComponent(int[] c) {
+            if (c.length == 1 && !hasSelfLoop(c[0])) {
+                stats.recordWorkListSize(1);
+                visit(c[0]);
+                return;
+            }
+            int id = component[c[0]];
+            int[] workList = c.clone();
+            int head = 0, size = c.length;
+            BitSet inWorkList = new BitSet(c.length);
+            inWorkList.set(0, c.length);
+            stats.recordWorkListSize(size);
+            while (size > 0) {
+                int i = workList[head];
+                head = head + 1 == c.length ? 0 : head + 1;
+                --size;
+                inWorkList.clear(position[i]);
+                if (visit(i)) {
+                    for (int t : targets[i]) {
+                        if (component[t] == id && !inWorkList.get(position[t])) {
+                            int tail = head + size;
+                            workList[tail >= c.length ? tail - c.length : tail] = t;
+                            ++size;
+                            inWorkList.set(position[t]);
+                        }
+                    }
+                    stats.recordWorkListSize(size);
+                }
+            }
+        }
+
+        private boolean hasSelfLoop(int i) {
+            for (int t : targets[i]) {
+                if (t == i) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Recomputes the facts of the i-th node from its sources.
+         *
+         * @return true if the output of the node changed, otherwise false.
+         */
+        private boolean visit(int i) {
+            stats.countIteration();
+            if (i == boundary) {
+                // the fact of the boundary node is fixed
+                return false;
+            }
+            Node node = nodes.get(i);
+            Fact input = analysis.newInitialFact();
+            for (int s : sources[i]) {
+                meetInto(outputs[s], input);
+            }
+            boolean changed;
+            if (isIdentity(cfg, node)) {
+                // the shared fact is replaced rather than updated in place
+                changed = !input.equals(outputs[i]);
+                outputs[i] = input;
+            } else {
+                changed = transferNode(node, input, outputs[i]);
+            }
+            inputs[i] = input;
+            return changed;
+        }
+
+        /**
+         * Computes the strongly connected components of the CFG
+         * (Tarjan's algorithm, iteratively), and groups them by their
+         * longest distance from the roots of the condensation DAG.
+         */
+        private List<List<int[]>> computeLevels() {
+            int n = nodes.size();
+            component = new int[n];
+            position = new int[n];
+            int[] low = new int[n];
+            int[] order = new int[n];
+            Arrays.fill(order, -1);
+            BitSet onStack = new BitSet(n);
+            int[] stack = new int[n];
+            int top = 0;
+            List<int[]> components = new ArrayList<>();
+            int[] callStack = new int[n];
+            int[] edgeIndex = new int[n];
+            int counter = 0;
+            for (int root = 0; root < n; ++root) {
+                if (order[root] != -1) {
+                    continue;
+                }
+                int depth = 0;
+                callStack[0] = root;
+                edgeIndex[root] = 0;
+                order[root] = low[root] = counter++;
+                stack[top++] = root;
+                onStack.set(root);
+                while (depth >= 0) {
+                    int v = callStack[depth];
+                    if (edgeIndex[v] < targets[v].length) {
+                        int w = targets[v][edgeIndex[v]++];
+                        if (order[w] == -1) {
+                            order[w] = low[w] = counter++;
+                            edgeIndex[w] = 0;
+                            stack[top++] = w;
+                            onStack.set(w);
+                            callStack[++depth] = w;
+                        } else if (onStack.get(w)) {
+                            low[v] = Math.min(low[v], order[w]);
+                        }
+                        continue;
+                    }
+                    if (low[v] == order[v]) {
+                        // the members are above v on the stack in discovery order
+                        int bottom = top;
+                        do {
+                            --bottom;
+                        } while (stack[bottom] != v);
+                        int[] members = Arrays.copyOfRange(stack, bottom, top);
+                        for (int p = 0; p < members.length; ++p) {
+                            int w = members[p];
+                            onStack.clear(w);
+                            component[w] = components.size();
+                            position[w] = p;
+                        }
+                        top = bottom;
+                        components.add(members);
+                    }
+                    if (--depth >= 0) {
+                        int parent = callStack[depth];
+                        low[parent] = Math.min(low[parent], low[v]);
+                    }
+                }
+            }
+            // Tarjan's algorithm finds components in reverse topological order
+            int[] level = new int[components.size()];
+            int maxLevel = 0;
+            for (int c = components.size() - 1; c >= 0; --c) {
+                maxLevel = Math.max(maxLevel, level[c]);
+                for (int v : components.get(c)) {
+                    for (int t : targets[v]) {
+                        int d = component[t];
+                        if (d != c) {
+                            level[d] = Math.max(level[d], level[c] + 1);
+                        }
+                    }
+                }
+            }
+            List<List<int[]>> levels = new ArrayList<>(maxLevel + 1);
+            for (int l = 0; l <= maxLevel; ++l) {
+                levels.add(new ArrayList<>());
+            }
+            for (int c = components.size() - 1; c >= 0; --c) {
+                levels.get(level[c]).add(components.get(c));
+            }
+            return levels;
+        }
+    }
+}
@@ -22,9 +22,16 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.IdentityTransfer;
+import pascal.taie.analysis.dataflow.fact.ArrayDataflowResult;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -35,18 +42,67 @@ import pascal.taie.analysis.graph.cfg.CFG;
  */
 public abstract class Solver<Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(Solver.class);
+
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Counters of the work done by the solvers of the analysis.
+     */
+    protected final SolverStats stats;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
+        this(analysis, SolverStats.of(analysis));
+    }
+
+    /**
+     * Creates a solver which counts its work by given counters instead of
+     * those of the analysis.
+     */
+    protected Solver(DataflowAnalysis<Node, Fact> analysis, SolverStats stats) {
         this.analysis = analysis;
+        this.stats = stats;
     }
 
     /**
      * Static factory method to create a new solver for given analysis.
+     * The solver can be chosen by the "solver" option of the analysis,
+     * and the work-list solver is used by default.
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new WorkListSolver<>(analysis);
+        String kind = "worklist";
+        if (analysis instanceof MethodAnalysis methodAnalysis &&
+                methodAnalysis.getOptions().has("solver")) {
+            kind = methodAnalysis.getOptions().getString("solver");
+        }
+        return makeSolver(analysis, kind);
+    }
+
+    /**
+     * Creates a new solver of given kind for given analysis.
+     *
+     * @param kind "worklist" for the work-list solver, "wto" for
+     *             the solver iterating over weak topological order,
+     *             "compare" for the WTO solver which also logs how many
+     *             transfers it saves compared with a FIFO work-list,
+     *             "block" for the solver working on basic blocks,
+     *             "sparse" for the sparse solver of constant propagation, or
+     *             "parallel" for the solver which solves independent
+     *             strongly connected components of the CFG in parallel
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, String kind) {
+        return switch (kind) {
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "wto" -> new WTOSolver<>(analysis);
+            case "compare" -> new ComparingSolver<>(analysis);
+            case "block" -> new BasicBlockSolver<>(analysis);
+            case "sparse" -> SparseSolver.make(analysis);
+            case "parallel" -> new ParallelSCCSolver<>(analysis);
+            default -> throw new IllegalArgumentException(
+                    "Unknown data-flow solver: " + kind);
+        };
     }
 
     /**
@@ -56,8 +112,18 @@ public abstract class Solver<Node, Fact> {
      * @return the analysis result
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        // the counters are shared by the solvers of the analysis, so the
+        // count also includes transfers of runs on other threads, if any
+        long transfers = stats.getTransfers();
+        long start = System.nanoTime();
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
+        stats.recordRun(cfg.getMethod(), System.nanoTime() - start);
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} performed {} transfers on {}",
+                    getClass().getSimpleName(),
+                    stats.getTransfers() - transfers, cfg.getMethod());
+        }
         return result;
     }
 
@@ -67,7 +133,7 @@ public abstract class Solver<Node, Fact> {
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,6 +142,19 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. Statement-level
+     * CFGs get an array-backed result indexed by statement index.
+     */
+    @SuppressWarnings("unchecked")
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return (DataflowResult<Node, Fact>) (DataflowResult<?, ?>)
+                    ArrayDataflowResult.of((CFG<Stmt>) cfg);
+        }
+        return new DataflowResult<>();
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - check
         result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
@@ -87,7 +166,12 @@ public abstract class Solver<Node, Fact> {
     }
 
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        throw new UnsupportedOperationException();
+        result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
+        for (Node node : cfg) {
+            if (node != cfg.getExit()) {
+                result.setInFact(node, analysis.newInitialFact());
+            }
+        }
     }
 
     /**
@@ -101,6 +185,43 @@ public abstract class Solver<Node, Fact> {
         }
     }
 
+    /**
+     * Applies the transfer function of the analysis on given node,
+     * and counts the transfer.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out) {
+        boolean changed = analysis.transferNode(node, in, out);
+        stats.countTransfer(changed);
+        return changed;
+    }
+
+    /**
+     * Counts a transfer which is not performed by {@link #transferNode}.
+     */
+    protected void countTransfer(boolean changed) {
+        stats.countTransfer(changed);
+    }
+
+    /**
+     * Meets fact into target by the analysis, and counts the meet.
+     */
+    protected void meetInto(Fact fact, Fact target) {
+        stats.countMeet();
+        analysis.meetInto(fact, target);
+    }
+
+    /**
+     * @return true if the transfer function of given node is identity,
+     * and the node is not the boundary node, whose fact is fixed.
+     * IN and OUT of such nodes share one fact instance.
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean isIdentity(CFG<Node> cfg, Node node) {
+        return analysis instanceof IdentityTransfer<?> identity &&
+                node != (analysis.isForward() ? cfg.getEntry() : cfg.getExit()) &&
+                ((IdentityTransfer<Node>) identity).isIdentity(node);
+    }
+
     protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
     protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
@@ -0,0 +1,696 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Sparse solver for forward constant propagation. Instead of moving
+ * whole facts along CFG edges, it computes the value of each definition
+ * of an int variable, and re-evaluates a definition only when the value
+ * of a definition it uses (through def-use chains) changes.
+ * <p>
+ * The definitions are put into SSA form, so each use is reached by a
+ * single definition, and the value of a phi definition is the meet of
+ * the values of the definitions it merges. The facts of the dense
+ * solvers are materialized from the definitions along the dominator
+ * tree when they are queried from the result.
+ */
+class SparseSolver extends Solver<Stmt, CPFact> {
+
+    private final ConstantPropagation cp;
+
+    private SparseSolver(ConstantPropagation cp) {
+        super(cp);
+        this.cp = cp;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <Node, Fact> Solver<Node, Fact> make(DataflowAnalysis<Node, Fact> analysis) {
+        if (!(analysis instanceof ConstantPropagation cp)) {
+            throw new IllegalArgumentException(
+                    "Sparse solver only supports " + ConstantPropagation.ID);
+        }
+        return (Solver<Node, Fact>) (Solver<?, ?>) new SparseSolver(cp);
+    }
+
+    @Override
+    protected DataflowResult<Stmt, CPFact> newResult(CFG<Stmt> cfg) {
+        return new SparseResult(cp, cfg);
+    }
+
+    @Override
+    protected void initializeForward(CFG<Stmt> cfg, DataflowResult<Stmt, CPFact> result) {
+        // facts are materialized by the result
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Stmt> cfg, DataflowResult<Stmt, CPFact> result) {
+        SparseResult r = (SparseResult) result;
+        CPFact operands = new CPFact();
+        BitSet workList = new BitSet(r.defs.size());
+        for (Def def : r.defs) {
+            if (def.stmt != null || def.isPhi) {
+                workList.set(def.id);
+            }
+        }
+        int pending = workList.cardinality();
+        stats.recordWorkListSize(pending);
+        for (int d = workList.nextSetBit(0); d >= 0; d = workList.nextSetBit(0)) {
+            workList.clear(d);
+            --pending;
+            stats.countIteration();
+            Def def = r.defs.get(d);
+            Value value;
+            if (def.isPhi) {
+                value = Value.getUndef();
+                for (int o : def.operands) {
+                    value = cp.meetValue(value, r.values[o]);
+                }
+            } else {
+                // each operand is the only definition of a distinct variable
+                operands.clear();
+                for (int o : def.operands) {
+                    operands.update(r.defs.get(o).var, r.values[o]);
+                }
+                value = cp.getEvaluator(def.stmt).evaluate(operands);
+            }
+            boolean changed = !value.equals(r.values[d]);
+            countTransfer(changed);
+            if (changed) {
+                r.values[d] = value;
+                for (int user : def.users) {
+                    if (!workList.get(user)) {
+                        workList.set(user);
+                        ++pending;
+                    }
+                }
+                stats.recordWorkListSize(pending);
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Stmt> cfg, DataflowResult<Stmt, CPFact> result) {
+        throw new UnsupportedOperationException(
+                "Sparse solver only supports forward analyses");
+    }
+
+    /**
+     * Definition of an int variable, i.e., an SSA name of the variable.
+     */
+    private static class Def {
+
+        private final int id;
+
+        private final Var var;
+
+        /**
+         * The defining statement, or null for the parameters, which are
+         * defined at the entry, and for the phi definitions.
+         */
+        private final DefinitionStmt<?, ?> stmt;
+
+        /**
+         * Whether this definition merges the definitions of var reaching
+         * the predecessors of node, i.e., it is a phi function.
+         */
+        private final boolean isPhi;
+
+        private final int node;
+
+        /**
+         * Definitions read by this definition: the definitions of the
+         * variables used by stmt, or the merged ones of a phi definition.
+         * Variables which no definition reaches are UNDEF and omitted.
+         */
+        private int[] operands = new int[0];
+
+        /**
+         * Definitions which use this definition.
+         */
+        private int[] users = new int[0];
+
+        private Def(int id, Var var, DefinitionStmt<?, ?> stmt, boolean isPhi, int node) {
+            this.id = id;
+            this.var = var;
+            this.stmt = stmt;
+            this.isPhi = isPhi;
+            this.node = node;
+        }
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    private static class IntList {
+
+        private int[] elems = new int[2];
+
+        private int size;
+
+        private void add(int e) {
+            if (size == elems.length) {
+                elems = Arrays.copyOf(elems, size * 2);
+            }
+            elems[size++] = e;
+        }
+
+        private int last() {
+            return size == 0 ? -1 : elems[size - 1];
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(elems, size);
+        }
+    }
+
+    /**
+     * Data-flow result which keeps the values of definitions, and
+     * materializes the fact of a node when it is queried.
+     * <p>
+     * The definitions are put into SSA form: phi definitions are placed
+     * at the iterated dominance frontiers of the definitions of each
+     * variable, and renaming along the dominator tree gives every use a
+     * single reaching definition, so def-use chains take space linear in
+     * the size of the method plus the number of phi definitions.
+     * The dominators are computed on the CFG extended with a root which
+     * precedes the entry and the nodes unreachable from it. The root
+     * defines no variable, so the facts of unreachable code start from
+     * UNDEF, as in the dense solvers.
+     */
+    private static class SparseResult extends DataflowResult<Stmt, CPFact> {
+
+        private final ConstantPropagation cp;
+
+        private final Stmt entry;
+
+        private final Stmt exit;
+
+        private final CPFact boundary;
+
+        private final List<Def> defs = new ArrayList<>();
+
+        private final Value[] values;
+
+        private final Stmt[] nodes;
+
+        /**
+         * Index of the root of the extended CFG.
+         */
+        private final int root;
+
+        /**
+         * Definition at each node, or -1 if the node defines no int variable.
+         */
+        private final int[] defOf;
+
+        /**
+         * Phi definitions at each node, or null if there is none.
+         */
+        private final IntList[] phis;
+
+        /**
+         * Immediate dominator of each node in the extended CFG.
+         */
+        private final int[] idom;
+
+        /**
+         * Nodes which the root of the extended CFG precedes.
+         */
+        private final IntList rootSuccs = new IntList();
+
+        private final CPFact[] in;
+
+        private final CPFact[] out;
+
+        /**
+         * Buffer of the dominators whose facts are being materialized.
+         */
+        private int[] chain;
+
+        private SparseResult(ConstantPropagation cp, CFG<Stmt> cfg) {
+            this.cp = cp;
+            this.entry = cfg.getEntry();
+            this.exit = cfg.getExit();
+            this.boundary = cp.newBoundaryFact(cfg);
+            int size = cfg.getIR().getStmts().size() + 2;
+            root = size;
+            nodes = new Stmt[size];
+            for (Stmt node : cfg.getNodes()) {
+                nodes[index(node)] = node;
+            }
+            defOf = new int[size];
+            Arrays.fill(defOf, -1);
+            phis = new IntList[size];
+            in = new CPFact[size];
+            out = new CPFact[size];
+            boundary.forEach((var, value) -> addDef(var, null, false, 0));
+            for (Stmt stmt : cfg.getIR().getStmts()) {
+                if (stmt instanceof DefinitionStmt<?, ?> def &&
+                        def.getLValue() instanceof Var x &&
+                        ConstantPropagation.canHoldInt(x)) {
+                    defOf[index(stmt)] = addDef(x, def, false, index(stmt)).id;
+                }
+            }
+            int[][] succs = new int[size][];
+            for (int n = 0; n < size; ++n) {
+                if (nodes[n] != null) {
+                    succs[n] = cfg.getSuccsOf(nodes[n]).stream()
+                            .mapToInt(this::index).toArray();
+                }
+            }
+            int[][] preds = new int[size + 1][];
+            idom = computeDominators(succs, preds);
+            placePhis(cfg.getIR().getVars(), preds);
+            rename(cfg.getIR().getVars().size(), succs);
+            computeUsers();
+            values = new Value[defs.size()];
+            Arrays.fill(values, Value.getUndef());
+            for (Def def : defs) {
+                if (def.stmt == null && !def.isPhi) {
+                    values[def.id] = boundary.get(def.var);
+                }
+            }
+        }
+
+        private Def addDef(Var var, DefinitionStmt<?, ?> stmt, boolean isPhi, int node) {
+            Def def = new Def(defs.size(), var, stmt, isPhi, node);
+            defs.add(def);
+            return def;
+        }
+
+        private int index(Stmt stmt) {
+            return stmt == entry ? 0 : stmt == exit ? 1 : stmt.getIndex() + 2;
+        }
+
+        /**
+         * Computes the immediate dominators on the extended CFG by the
+         * algorithm of Cooper, Harvey and Kennedy, and fills preds with
+         * the predecessors of each node in the extended CFG.
+         */
+        private int[] computeDominators(int[][] succs, int[][] preds) {
+            int size = succs.length;
+            // post-order numbering by iterative depth-first search
+            int[] postNum = new int[size + 1];
+            Arrays.fill(postNum, -1);
+            int[] order = new int[size + 1];
+            int count = 0;
+            boolean[] visited = new boolean[size];
+            int[] stack = new int[size];
+            int[] next = new int[size];
+            for (int r = 0; r < size; ++r) {
+                // the entry (0) comes first, then the unreachable nodes
+                if (nodes[r] == null || visited[r]) {
+                    continue;
+                }
+                rootSuccs.add(r);
+                visited[r] = true;
+                int depth = 0;
+                stack[depth] = r;
+                next[depth++] = 0;
+                while (depth > 0) {
+                    int n = stack[depth - 1];
+                    if (next[depth - 1] < succs[n].length) {
+                        int succ = succs[n][next[depth - 1]++];
+                        if (!visited[succ]) {
+                            visited[succ] = true;
+                            stack[depth] = succ;
+                            next[depth++] = 0;
+                        }
+                    } else {
+                        postNum[n] = count;
+                        order[count++] = n;
+                        --depth;
+                    }
+                }
+            }
+            postNum[root] = count;
+            order[count++] = root;
+            // predecessors in the extended CFG
+            int[] predCount = new int[size + 1];
+            for (int n = 0; n < size; ++n) {
+                if (succs[n] != null) {
+                    for (int succ : succs[n]) {
+                        ++predCount[succ];
+                    }
+                }
+            }
+            for (int i = 0; i < rootSuccs.size; ++i) {
+                ++predCount[rootSuccs.elems[i]];
+            }
+            for (int n = 0; n <= size; ++n) {
+                preds[n] = new int[predCount[n]];
+                predCount[n] = 0;
+            }
+            for (int n = 0; n < size; ++n) {
+                if (succs[n] != null) {
+                    for (int succ : succs[n]) {
+                        preds[succ][predCount[succ]++] = n;
+                    }
+                }
+            }
+            for (int i = 0; i < rootSuccs.size; ++i) {
+                int r = rootSuccs.elems[i];
+                preds[r][predCount[r]++] = root;
+            }
+            // iterate in reverse post-order until the dominators are stable
+            int[] idom = new int[size + 1];
+            Arrays.fill(idom, -1);
+            idom[root] = root;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int i = count - 2; i >= 0; --i) {
+                    int n = order[i];
+                    int newIdom = -1;
+                    for (int pred : preds[n]) {
+                        if (idom[pred] != -1) {
+                            newIdom = newIdom == -1 ? pred :
+                                    intersect(pred, newIdom, idom, postNum);
+                        }
+                    }
+                    if (idom[n] != newIdom) {
+                        idom[n] = newIdom;
+                        changed = true;
+                    }
+                }
+            }
+            return idom;
+        }
+
+        private static int intersect(int n1, int n2, int[] idom, int[] postNum) {
+            while (n1 != n2) {
+                while (postNum[n1] < postNum[n2]) {
+                    n1 = idom[n1];
+                }
+                while (postNum[n2] < postNum[n1]) {
+                    n2 = idom[n2];
+                }
+            }
+            return n1;
+        }
+
+        /**
+         * Places phi definitions of each variable at the iterated
+         * dominance frontiers of its definitions.
+         */
+        private void placePhis(List<Var> vars, int[][] preds) {
+            int nVars = vars.size();
+            int size = nodes.length;
+            // dominance frontiers
+            IntList[] frontiers = new IntList[size];
+            for (int n = 0; n < size; ++n) {
+                if (nodes[n] == null || preds[n].length < 2) {
+                    continue;
+                }
+                for (int pred : preds[n]) {
+                    for (int runner = pred; runner != idom[n]; runner = idom[runner]) {
+                        if (frontiers[runner] == null) {
+                            frontiers[runner] = new IntList();
+                        }
+                        if (frontiers[runner].last() != n) {
+                            frontiers[runner].add(n);
+                        }
+                    }
+                }
+            }
+            // definition sites of each variable
+            IntList[] sites = new IntList[nVars];
+            for (Def def : defs) {
+                int v = def.var.getIndex();
+                if (sites[v] == null) {
+                    sites[v] = new IntList();
+                }
+                sites[v].add(def.node);
+            }
+            int[] hasPhi = new int[size];
+            int[] queued = new int[size];
+            Arrays.fill(hasPhi, -1);
+            Arrays.fill(queued, -1);
+            IntList workList = new IntList();
+            for (int v = 0; v < nVars; ++v) {
+                if (sites[v] == null) {
+                    continue;
+                }
+                Var var = vars.get(v);
+                workList.size = 0;
+                for (int i = 0; i < sites[v].size; ++i) {
+                    int site = sites[v].elems[i];
+                    if (queued[site] != v) {
+                        queued[site] = v;
+                        workList.add(site);
+                    }
+                }
+                while (workList.size > 0) {
+                    IntList frontier = frontiers[workList.elems[--workList.size]];
+                    if (frontier == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < frontier.size; ++i) {
+                        int n = frontier.elems[i];
+                        if (hasPhi[n] != v) {
+                            hasPhi[n] = v;
+                            if (phis[n] == null) {
+                                phis[n] = new IntList();
+                            }
+                            phis[n].add(addDef(var, null, true, n).id);
+                            if (queued[n] != v) {
+                                queued[n] = v;
+                                workList.add(n);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Walks the dominator tree with the current definition of each
+         * variable, and connects every use to the definition reaching it.
+         */
+        private void rename(int nVars, int[][] succs) {
+            int size = nodes.length;
+            IntList[] children = new IntList[size + 1];
+            for (int n = 0; n < size; ++n) {
+                if (nodes[n] != null) {
+                    int parent = idom[n];
+                    if (children[parent] == null) {
+                        children[parent] = new IntList();
+                    }
+                    children[parent].add(n);
+                }
+            }
+            IntList[] phiOperands = new IntList[defs.size()];
+            int[] current = new int[nVars];
+            Arrays.fill(current, -1);
+            // definition shadowed by each definition, restored on leaving its node
+            int[] shadowed = new int[defs.size()];
+            IntList pushed = new IntList();
+            // a node n is entered by n, and left by ~n
+            IntList stack = new IntList();
+            stack.add(root);
+            while (stack.size > 0) {
+                int n = stack.elems[--stack.size];
+                if (n < 0) {
+                    for (int i = pushed.size - 1; i >= 0 && defs.get(pushed.elems[i]).node == ~n; --i) {
+                        Def def = defs.get(pushed.elems[i]);
+                        current[def.var.getIndex()] = shadowed[def.id];
+                        --pushed.size;
+                    }
+                    continue;
+                }
+                stack.add(~n);
+                if (n != root) {
+                    if (phis[n] != null) {
+                        for (int i = 0; i < phis[n].size; ++i) {
+                            push(phis[n].elems[i], current, shadowed, pushed);
+                        }
+                    }
+                    if (n == 0) {
+                        for (Def def : defs) {
+                            if (def.node == 0 && def.stmt == null && !def.isPhi) {
+                                push(def.id, current, shadowed, pushed);
+                            }
+                        }
+                    }
+                    if (defOf[n] != -1) {
+                        Def def = defs.get(defOf[n]);
+                        IntList operands = new IntList();
+                        for (RValue use : def.stmt.getUses()) {
+                            if (use instanceof Var var && ConstantPropagation.canHoldInt(var)) {
+                                int d = current[var.getIndex()];
+                                if (d != -1 && !contains(operands, d)) {
+                                    operands.add(d);
+                                }
+                            }
+                        }
+                        def.operands = operands.toArray();
+                        push(def.id, current, shadowed, pushed);
+                    }
+                    for (int succ : succs[n]) {
+                        if (phis[succ] != null) {
+                            for (int i = 0; i < phis[succ].size; ++i) {
+                                int phi = phis[succ].elems[i];
+                                int d = current[defs.get(phi).var.getIndex()];
+                                if (d != -1) {
+                                    if (phiOperands[phi] == null) {
+                                        phiOperands[phi] = new IntList();
+                                    }
+                                    phiOperands[phi].add(d);
+                                }
+                            }
+                        }
+                    }
+                }
+                if (children[n] != null) {
+                    for (int i = 0; i < children[n].size; ++i) {
+                        stack.add(children[n].elems[i]);
+                    }
+                }
+            }
+            for (Def def : defs) {
+                if (def.isPhi && phiOperands[def.id] != null) {
+                    def.operands = phiOperands[def.id].toArray();
+                }
+            }
+        }
+
+        private void push(int d, int[] current, int[] shadowed, IntList pushed) {
+            int v = defs.get(d).var.getIndex();
+            shadowed[d] = current[v];
+            current[v] = d;
+            pushed.add(d);
+        }
+
+        private static boolean contains(IntList list, int e) {
+            for (int i = 0; i < list.size; ++i) {
+                if (list.elems[i] == e) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Connects each definition to the definitions which read it.
+         */
+        private void computeUsers() {
+            IntList[] users = new IntList[defs.size()];
+            for (Def def : defs) {
+                for (int o : def.operands) {
+                    if (users[o] == null) {
+                        users[o] = new IntList();
+                    }
+                    if (users[o].last() != def.id) {
+                        users[o].add(def.id);
+                    }
+                }
+            }
+            for (Def def : defs) {
+                if (users[def.id] != null) {
+                    def.users = users[def.id].toArray();
+                }
+            }
+        }
+
+        @Override
+        public CPFact getInFact(Stmt node) {
+            int n = index(node);
+            if (in[n] == null) {
+                // the IN fact of a node is the OUT fact of its immediate
+                // dominator updated by the phi definitions at the node,
+                // thus the missing facts are computed from the outermost
+                if (chain == null) {
+                    chain = new int[nodes.length];
+                }
+                int depth = 0;
+                for (int m = n; m != root && in[m] == null; m = idom[m]) {
+                    chain[depth++] = m;
+                }
+                while (depth > 0) {
+                    int m = chain[--depth];
+                    CPFact fact = idom[m] == root ? cp.newInitialFact() :
+                            getOutFact(nodes[idom[m]]).copy();
+                    if (phis[m] != null) {
+                        for (int i = 0; i < phis[m].size; ++i) {
+                            int phi = phis[m].elems[i];
+                            fact.update(defs.get(phi).var, values[phi]);
+                        }
+                    }
+                    in[m] = fact;
+                }
+            }
+            return in[n];
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt node) {
+            int n = index(node);
+            CPFact fact = out[n];
+            if (fact == null) {
+                if (node == entry) {
+                    fact = boundary.copy();
+                } else {
+                    fact = getInFact(node).copy();
+                    if (defOf[n] != -1) {
+                        fact.update(defs.get(defOf[n]).var, values[defOf[n]]);
+                    }
+                }
+                out[n] = fact;
+            }
+            return fact;
+        }
+
+        @Override
+        public CPFact getResult(Stmt node) {
+            return getOutFact(node);
+        }
+
+        @Override
+        public void setInFact(Stmt node, CPFact fact) {
+            throw new UnsupportedOperationException(
+                    "Facts of sparse result are materialized from definitions");
+        }
+
+        @Override
+        public void setOutFact(Stmt node, CPFact fact) {
+            throw new UnsupportedOperationException(
+                    "Facts of sparse result are materialized from definitions");
+        }
+    }
+}
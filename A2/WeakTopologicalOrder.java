@@ -0,0 +1,212 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Weak topological order of a graph, computed by Bourdoncle's algorithm
+ * (F. Bourdoncle, Efficient chaotic iteration strategies with widenings, 1993).
+ * The order is a hierarchy of components: each component has a head and
+ * a body, and iterating a component until its head is stable stabilizes
+ * inner loops before the outer ones.
+ *
+ * @param <Node> type of graph nodes
+ */
+class WeakTopologicalOrder<Node> {
+
+    /**
+     * An element of a weak topological order, which is either a single
+     * node (body is null) or a component headed by {@link #head()}.
+     */
+    record Element<Node>(Node head, List<Element<Node>> body) {
+
+        boolean isComponent() {
+            return body != null;
+        }
+    }
+
+    private final List<Element<Node>> elements;
+
+    private WeakTopologicalOrder(List<Element<Node>> elements) {
+        this.elements = elements;
+    }
+
+    List<Element<Node>> getElements() {
+        return elements;
+    }
+
+    /**
+     * Computes the weak topological order of all given nodes. The nodes
+     * are ordered in parts: the part reachable from root is built first,
+     * and each further part consists of the nodes reachable from an
+     * unvisited node. A part may have edges into the parts built before
+     * it (e.g., from dead code into live code), but not the other way
+     * around, thus the parts are ordered from the last built to the first,
+     * and the nodes reachable from root come last.
+     *
+     * @param succs returns the successors of a node, i.e., for backward
+     *              analyses, the predecessors in the CFG
+     */
+    static <Node> WeakTopologicalOrder<Node> build(
+            Node root, Collection<Node> nodes,
+            Function<Node, ? extends Collection<Node>> succs) {
+        Builder<Node> builder = new Builder<>(succs);
+        LinkedList<Element<Node>> elements = new LinkedList<>(builder.build(root));
+        for (Node node : nodes) {
+            if (builder.dfn(node) == 0) {
+                elements.addAll(0, builder.build(node));
+            }
+        }
+        return new WeakTopologicalOrder<>(elements);
+    }
+
+    /**
+     * Non-recursive version of Bourdoncle's algorithm, so that huge
+     * methods do not overflow the call stack.
+     */
+    private static class Builder<Node> {
+
+        private static final int INFINITY = Integer.MAX_VALUE;
+
+        private final Function<Node, ? extends Collection<Node>> succs;
+
+        private final Map<Node, Integer> dfn = new HashMap<>();
+
+        private final Deque<Node> stack = new ArrayDeque<>();
+
+        private final Deque<Frame<Node>> frames = new ArrayDeque<>();
+
+        private int num = 0;
+
+        private Builder(Function<Node, ? extends Collection<Node>> succs) {
+            this.succs = succs;
+        }
+
+        private int dfn(Node node) {
+            return dfn.getOrDefault(node, 0);
+        }
+
+        private List<Element<Node>> build(Node root) {
+            LinkedList<Element<Node>> partition = new LinkedList<>();
+            pushVisit(root, partition);
+            while (!frames.isEmpty()) {
+                Frame<Node> frame = frames.peek();
+                if (frame.succs.hasNext()) {
+                    Node succ = frame.succs.next();
+                    if (dfn(succ) == 0) {
+                        pushVisit(succ, frame.partition);
+                    } else if (!frame.isComponent) {
+                        frame.updateHead(dfn(succ));
+                    }
+                    continue;
+                }
+                frames.pop();
+                if (frame.isComponent) {
+                    frame.parentPartition.addFirst(
+                            new Element<>(frame.node, frame.partition));
+                } else {
+                    finishVisit(frame);
+                }
+            }
+            return partition;
+        }
+
+        private void pushVisit(Node node, LinkedList<Element<Node>> partition) {
+            stack.push(node);
+            dfn.put(node, ++num);
+            frames.push(new Frame<>(node, succs.apply(node).iterator(),
+                    num, false, partition, null));
+        }
+
+        private void finishVisit(Frame<Node> frame) {
+            Node node = frame.node;
+            // the head is returned to the caller frame (if any)
+            Frame<Node> caller = frames.peek();
+            if (caller != null && !caller.isComponent) {
+                caller.updateHead(frame.head);
+            }
+            if (frame.head == dfn(node)) {
+                dfn.put(node, INFINITY);
+                Node elem = stack.pop();
+                if (frame.loop) {
+                    while (elem != node) {
+                        dfn.put(elem, 0);
+                        elem = stack.pop();
+                    }
+                    // visit the body of the component headed by node
+                    frames.push(new Frame<>(node, succs.apply(node).iterator(),
+                            0, true, new LinkedList<>(), frame.partition));
+                } else {
+                    frame.partition.addFirst(new Element<>(node, null));
+                }
+            }
+        }
+    }
+
+    private static class Frame<Node> {
+
+        private final Node node;
+
+        private final Iterator<Node> succs;
+
+        private final boolean isComponent;
+
+        private final LinkedList<Element<Node>> partition;
+
+        /**
+         * Partition which the finished component is added to.
+         */
+        private final LinkedList<Element<Node>> parentPartition;
+
+        private int head;
+
+        private boolean loop;
+
+        private Frame(Node node, Iterator<Node> succs, int head, boolean isComponent,
+                      LinkedList<Element<Node>> partition,
+                      LinkedList<Element<Node>> parentPartition) {
+            this.node = node;
+            this.succs = succs;
+            this.head = head;
+            this.isComponent = isComponent;
+            this.partition = partition;
+            this.parentPartition = parentPartition;
+        }
+
+        private void updateHead(int min) {
+            if (min <= head) {
+                head = min;
+                loop = true;
+            }
+        }
+    }
+}
@@ -23,11 +23,15 @@
 package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
-import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGOrders;
 
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
@@ -40,23 +44,83 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - check
         Queue<Node> workList = new LinkedList<>(cfg.getNodes());
+        stats.recordWorkListSize(workList.size());
         while(!workList.isEmpty()){
             Node node = workList.poll();
-            CPFact in = new CPFact();
-            CPFact out = (CPFact) result.getOutFact(node);
+            stats.countIteration();
+            Fact in = analysis.newInitialFact();
+            Fact out = result.getOutFact(node);
             for(Node pred : cfg.getPredsOf(node)){
-                analysis.meetInto(result.getOutFact(pred), (Fact) in);
+                meetInto(result.getOutFact(pred), in);
             }
-            if(analysis.transferNode(node, (Fact) in, (Fact) out)){
+            if(isIdentity(cfg, node)){
+                // OUT[B] = IN[B], share the fact
+                if(!in.equals(out)){
+                    cfg.getSuccsOf(node).forEach(workList::offer);
+                    stats.recordWorkListSize(workList.size());
+                }
+                result.setInFact(node, in);
+                result.setOutFact(node, in);
+                continue;
+            }
+            if(transferNode(node, in, out)){
                 cfg.getSuccsOf(node).forEach(workList::offer);
+                stats.recordWorkListSize(workList.size());
             }
-            result.setInFact(node, (Fact) in);
-            result.setOutFact(node, (Fact) out);
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
         }
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        throw new UnsupportedOperationException();
+        List<Node> order = CFGOrders.postOrder(cfg);
+        Map<Node, Integer> number = new HashMap<>(order.size() * 2);
+        for (int i = 0; i < order.size(); ++i) {
+            number.put(order.get(i), i);
+        }
+        // OUT facts are only ever enlarged, thus each node keeps
+        // its OUT fact across visits instead of allocating a new one
+        for (Node node : order) {
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        int pending = order.size();
+        stats.recordWorkListSize(pending);
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            --pending;
+            stats.countIteration();
+            Node node = order.get(i);
+            Fact in = result.getInFact(node);
+            boolean changed;
+            if (isIdentity(cfg, node)) {
+                // the shared fact is replaced rather than enlarged in place
+                Fact out = analysis.newInitialFact();
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    meetInto(result.getInFact(succ), out);
+                }
+                changed = !out.equals(in);
+                result.setInFact(node, out);
+                result.setOutFact(node, out);
+            } else {
+                Fact out = result.getOutFact(node);
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    meetInto(result.getInFact(succ), out);
+                }
+                changed = transferNode(node, out, in);
+            }
+            if (changed) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    int p = number.get(pred);
+                    if (!workList.get(p)) {
+                        workList.set(p);
+                        ++pending;
+                    }
+                }
+                stats.recordWorkListSize(pending);
+            }
+        }
     }
 }
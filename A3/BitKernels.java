@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Kernels of word-wise operations on bit vectors, which work on the
+ * words in [from, to) of the given arrays.
+ * <p>
+ * The kernels implemented with the Vector API ({@code jdk.incubator.vector})
+ * live in the optional source directory {@code vector/}, which is compiled
+ * and run only with {@code --add-modules jdk.incubator.vector}. They are
+ * used by default if the module is resolved, the class is available and
+ * the preferred vector species has more than one lane; otherwise, or if
+ * system property {@code pascal.taie.bitvector.simd} is set to false,
+ * the scalar kernels are used.
+ */
+interface BitKernels {
+
+    BitKernels INSTANCE = Loader.load();
+
+    /**
+     * dst |= src
+     *
+     * @return true if dst changed, otherwise false.
+     */
+    boolean or(long[] src, long[] dst, int from, int to);
+
+    /**
+     * dst &= src
+     *
+     * @return true if dst changed, otherwise false.
+     */
+    boolean and(long[] src, long[] dst, int from, int to);
+
+    /**
+     * dst &= ~src
+     *
+     * @return true if dst changed, otherwise false.
+     */
+    boolean andNot(long[] src, long[] dst, int from, int to);
+
+    /**
+     * dst = src
+     *
+     * @return true if dst changed, otherwise false.
+     */
+    boolean copy(long[] src, long[] dst, int from, int to);
+
+    /**
+     * @return true if the words of a and b are equal, otherwise false.
+     */
+    boolean equals(long[] a, long[] b, int from, int to);
+
+    final class Loader {
+
+        private static final Logger logger = LogManager.getLogger(BitKernels.class);
+
+        private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+        private static final String VECTOR_KERNELS =
+                "pascal.taie.analysis.dataflow.fact.VectorBitKernels";
+
+        private Loader() {
+        }
+
+        private static BitKernels load() {
+            if (Boolean.parseBoolean(
+                    System.getProperty("pascal.taie.bitvector.simd", "true"))) {
+                try {
+                    int lanes = probeLanes();
+                    if (lanes > 1) {
+                        BitKernels kernels = (BitKernels) Class.forName(VECTOR_KERNELS)
+                                .getDeclaredConstructor()
+                                .newInstance();
+                        logger.debug("Using Vector API kernels for bit vectors ({} lanes)",
+                                lanes);
+                        return kernels;
+                    }
+                    logger.debug(lanes == 0 ?
+                            "Module " + VECTOR_MODULE + " is not resolved, using scalar kernels" :
+                            "Vector API has no SIMD support, using scalar kernels");
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    // vector/ is not compiled or jdk.incubator.vector is not resolved
+                    logger.debug("Vector API is unavailable, using scalar kernels: {}",
+                            e.toString());
+                }
+            }
+            return new ScalarBitKernels();
+        }
+
+        /**
+         * Probes the Vector API by reflection, so that this class does not
+         * depend on {@code jdk.incubator.vector}.
+         *
+         * @return the number of lanes of the preferred species of long
+         * vectors, or 0 if the module is not resolved.
+         */
+        private static int probeLanes() throws ReflectiveOperationException {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+                return 0;
+            }
+            Object species = Class.forName(VECTOR_MODULE + ".LongVector")
+                    .getField("SPECIES_PREFERRED")
+                    .get(null);
+            return (int) Class.forName(VECTOR_MODULE + ".VectorSpecies")
+                    .getMethod("length")
+                    .invoke(species);
+        }
+    }
+}
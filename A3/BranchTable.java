@@ -0,0 +1,118 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Branch targets of the {@link If} and {@link SwitchStmt} statements of
+ * a method, built once from the out edges of the CFG, so that the target
+ * of a branch under a constant condition is resolved in constant time
+ * (or by binary search over the case values of a switch).
+ * Tables are indexed by statement index.
+ */
+class BranchTable {
+
+    private final Stmt[] trueTargets;
+
+    private final Stmt[] falseTargets;
+
+    private final SwitchTable[] switchTables;
+
+    private BranchTable(int size) {
+        trueTargets = new Stmt[size];
+        falseTargets = new Stmt[size];
+        switchTables = new SwitchTable[size];
+    }
+
+    static BranchTable of(CFG<Stmt> cfg) {
+        BranchTable table = new BranchTable(cfg.getIR().getStmts().size());
+        for (Stmt stmt : cfg.getIR()) {
+            if (stmt instanceof If) {
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.getKind() == Edge.Kind.IF_TRUE) {
+                        table.trueTargets[stmt.getIndex()] = edge.getTarget();
+                    } else if (edge.getKind() == Edge.Kind.IF_FALSE) {
+                        table.falseTargets[stmt.getIndex()] = edge.getTarget();
+                    }
+                }
+            } else if (stmt instanceof SwitchStmt) {
+                List<Edge<Stmt>> cases = new ArrayList<>();
+                Stmt defaultTarget = null;
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.isSwitchCase()) {
+                        cases.add(edge);
+                    } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) {
+                        defaultTarget = edge.getTarget();
+                    }
+                }
+                cases.sort(Comparator.comparingInt(Edge::getCaseValue));
+                int[] caseValues = new int[cases.size()];
+                Stmt[] caseTargets = new Stmt[cases.size()];
+                for (int i = 0; i < caseValues.length; ++i) {
+                    caseValues[i] = cases.get(i).getCaseValue();
+                    caseTargets[i] = cases.get(i).getTarget();
+                }
+                table.switchTables[stmt.getIndex()] =
+                        new SwitchTable(caseValues, caseTargets, defaultTarget);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return the target of given if statement when its condition is
+     * cond, or null if the CFG has no such edge.
+     */
+    Stmt getTarget(If ifStmt, boolean cond) {
+        return (cond ? trueTargets : falseTargets)[ifStmt.getIndex()];
+    }
+
+    /**
+     * @return the target of given switch statement when its variable
+     * holds value, i.e., the target of the matching case or the default
+     * target if no case matches.
+     */
+    Stmt getTarget(SwitchStmt switchStmt, int value) {
+        SwitchTable table = switchTables[switchStmt.getIndex()];
+        int i = Arrays.binarySearch(table.caseValues(), value);
+        return i >= 0 ? table.caseTargets()[i] : table.defaultTarget();
+    }
+
+    /**
+     * @param caseValues  case values of a switch in ascending order
+     * @param caseTargets targets of the cases, in the same order
+     */
+    private record SwitchTable(int[] caseValues, Stmt[] caseTargets,
+                               Stmt defaultTarget) {
+    }
+}
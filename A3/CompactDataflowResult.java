@@ -0,0 +1,364 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGOrders;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read-only {@link DataflowResult} which stores the facts of a finished
+ * result compactly. The IN and OUT facts of the nodes are laid out along
+ * the reverse post-order of the CFG, and each fact is stored as the delta
+ * from the previous one, except for a full copy at every
+ * {@link #CHECKPOINT_INTERVAL} facts. A queried fact is reconstructed
+ * from the nearest preceding checkpoint, and every query returns a fresh
+ * copy, which the caller may modify without affecting this result.
+ * <p>
+ * The sizes are given as numbers of references held by the facts (a map
+ * entry counts as a key and a value), rather than bytes, as the layout of
+ * the objects depends on the JVM.
+ *
+ * @param <Node>  type of graph nodes
+ * @param <Fact>  type of data-flow facts
+ * @param <Delta> type of the differences between facts
+ */
+public class CompactDataflowResult<Node, Fact, Delta> extends DataflowResult<Node, Fact> {
+
+    private static final int CHECKPOINT_INTERVAL = 32;
+
+    /**
+     * Computes and applies the differences between facts of one kind.
+     */
+    public interface Codec<Fact, Delta> {
+
+        Fact copy(Fact fact);
+
+        /**
+         * @return the delta which turns from into to.
+         */
+        Delta diff(Fact from, Fact to);
+
+        /**
+         * Applies delta to given fact in place.
+         */
+        void apply(Delta delta, Fact fact);
+
+        /**
+         * @return number of references held by given fact.
+         */
+        long countReferences(Fact fact);
+
+        /**
+         * @return number of references held by given delta.
+         */
+        long countDeltaReferences(Delta delta);
+    }
+
+    private final Codec<Fact, Delta> codec;
+
+    /**
+     * Position of each node in reverse post-order. The IN fact of the
+     * node at position k is entry 2k, and the OUT fact is entry 2k + 1.
+     */
+    private final Map<Node, Integer> positions;
+
+    /**
+     * Full copies of facts, null at the entries stored as deltas.
+     */
+    private final Object[] checkpoints;
+
+    private final Object[] deltas;
+
+    /**
+     * Entries whose facts are absent from the original result.
+     */
+    private final BitSet absent;
+
+    private final long originalReferences;
+
+    private final long compactReferences;
+
+    private volatile Cache<Fact> cache;
+
+    public CompactDataflowResult(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                 Codec<Fact, Delta> codec) {
+        this.codec = codec;
+        List<Node> order = CFGOrders.reversePostOrder(cfg);
+        positions = new HashMap<>(order.size() * 2);
+        int size = order.size() * 2;
+        checkpoints = new Object[size];
+        deltas = new Object[size];
+        absent = new BitSet(size);
+        Set<Fact> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        long original = 0;
+        long compact = 0;
+        Fact previous = null;
+        for (int i = 0; i < size; ++i) {
+            Node node = order.get(i >> 1);
+            if ((i & 1) == 0) {
+                positions.put(node, i >> 1);
+            }
+            Fact fact = (i & 1) == 0 ? result.getInFact(node) : result.getOutFact(node);
+            if (fact == null) {
+                absent.set(i);
+                continue;
+            }
+            if (distinct.add(fact)) {
+                original += codec.countReferences(fact);
+            }
+            if (previous == null || i % CHECKPOINT_INTERVAL == 0) {
+                checkpoints[i] = codec.copy(fact);
+                compact += codec.countReferences(fact);
+            } else {
+                Delta delta = codec.diff(previous, fact);
+                deltas[i] = delta;
+                compact += codec.countDeltaReferences(delta);
+            }
+            previous = fact;
+        }
+        this.originalReferences = original;
+        this.compactReferences = compact;
+    }
+
+    /**
+     * Compacts given finished result if its facts are {@link MapFact}s
+     * or {@link SetFact}s.
+     *
+     * @return the compact result, or given result if its facts
+     * are of other types.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <Node, Fact> DataflowResult<Node, Fact> compact(
+            CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        Fact sample = result.getOutFact(cfg.getEntry());
+        if (sample == null) {
+            sample = result.getInFact(cfg.getEntry());
+        }
+        Codec codec;
+        if (sample instanceof MapFact) {
+            codec = new MapFactCodec<>();
+        } else if (sample instanceof SetFact) {
+            codec = new SetFactCodec<>();
+        } else {
+            return result;
+        }
+        return new CompactDataflowResult<>(cfg, result, codec);
+    }
+
+    /**
+     * @return number of references held by the distinct facts of
+     * the original result.
+     */
+    public long getOriginalReferences() {
+        return originalReferences;
+    }
+
+    /**
+     * @return number of references held by the checkpoints and deltas.
+     */
+    public long getCompactReferences() {
+        return compactReferences;
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        Integer pos = positions.get(node);
+        return pos == null ? null : reconstruct(pos * 2);
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        Integer pos = positions.get(node);
+        return pos == null ? null : reconstruct(pos * 2 + 1);
+    }
+
+    @Override
+    public Fact getResult(Node node) {
+        return getOutFact(node);
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException(
+                "Compact data-flow result is read-only");
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException(
+                "Compact data-flow result is read-only");
+    }
+
+    /**
+     * Rebuilds the fact of given entry from the nearest preceding checkpoint.
+     * The fact of the most recently queried entry is cached, and only
+     * copies of it are returned, so that callers cannot modify it.
+     */
+    @SuppressWarnings("unchecked")
+    private Fact reconstruct(int entry) {
+        if (absent.get(entry)) {
+            return null;
+        }
+        Cache<Fact> c = cache;
+        if (c != null && c.entry == entry) {
+            return codec.copy(c.fact);
+        }
+        int start = entry;
+        while (checkpoints[start] == null) {
+            --start;
+        }
+        Fact fact = codec.copy((Fact) checkpoints[start]);
+        for (int i = start + 1; i <= entry; ++i) {
+            if (deltas[i] != null) {
+                codec.apply((Delta) deltas[i], fact);
+            }
+        }
+        cache = new Cache<>(entry, fact);
+        return codec.copy(fact);
+    }
+
+    private record Cache<Fact>(int entry, Fact fact) {
+    }
+
+    /**
+     * Delta of {@link MapFact}s. A null value means the key is removed.
+     */
+    private record MapDelta(Object[] keys, Object[] values) {
+    }
+
+    private static class MapFactCodec<K, V> implements Codec<MapFact<K, V>, MapDelta> {
+
+        @Override
+        public MapFact<K, V> copy(MapFact<K, V> fact) {
+            return fact.copy();
+        }
+
+        @Override
+        public MapDelta diff(MapFact<K, V> from, MapFact<K, V> to) {
+            List<Object> keys = new ArrayList<>();
+            List<Object> values = new ArrayList<>();
+            Set<K> toKeys = to.keySet();
+            for (K key : toKeys) {
+                V value = to.get(key);
+                if (!Objects.equals(from.get(key), value)) {
+                    keys.add(key);
+                    values.add(value);
+                }
+            }
+            for (K key : from.keySet()) {
+                if (!toKeys.contains(key)) {
+                    keys.add(key);
+                    values.add(null);
+                }
+            }
+            return keys.isEmpty() ? null :
+                    new MapDelta(keys.toArray(), values.toArray());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void apply(MapDelta delta, MapFact<K, V> fact) {
+            for (int i = 0; i < delta.keys.length; ++i) {
+                K key = (K) delta.keys[i];
+                if (delta.values[i] == null) {
+                    fact.remove(key);
+                } else {
+                    fact.update(key, (V) delta.values[i]);
+                }
+            }
+        }
+
+        @Override
+        public long countReferences(MapFact<K, V> fact) {
+            return 2L * fact.keySet().size();
+        }
+
+        @Override
+        public long countDeltaReferences(MapDelta delta) {
+            return delta == null ? 0 : 2L * delta.keys.length;
+        }
+    }
+
+    /**
+     * Delta of {@link SetFact}s.
+     */
+    private record SetDelta(Object[] added, Object[] removed) {
+    }
+
+    private static class SetFactCodec<E> implements Codec<SetFact<E>, SetDelta> {
+
+        @Override
+        public SetFact<E> copy(SetFact<E> fact) {
+            return fact.copy();
+        }
+
+        @Override
+        public SetDelta diff(SetFact<E> from, SetFact<E> to) {
+            List<Object> added = new ArrayList<>();
+            List<Object> removed = new ArrayList<>();
+            to.forEach(e -> {
+                if (!from.contains(e)) {
+                    added.add(e);
+                }
+            });
+            from.forEach(e -> {
+                if (!to.contains(e)) {
+                    removed.add(e);
+                }
+            });
+            return added.isEmpty() && removed.isEmpty() ? null :
+                    new SetDelta(added.toArray(), removed.toArray());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void apply(SetDelta delta, SetFact<E> fact) {
+            for (Object e : delta.removed) {
+                fact.remove((E) e);
+            }
+            for (Object e : delta.added) {
+                fact.add((E) e);
+            }
+        }
+
+        @Override
+        public long countReferences(SetFact<E> fact) {
+            return fact.size();
+        }
+
+        @Override
+        public long countDeltaReferences(SetDelta delta) {
+            return delta == null ? 0 : delta.added.length + delta.removed.length;
+        }
+    }
+}
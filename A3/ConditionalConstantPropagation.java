@@ -0,0 +1,214 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.fact.ArrayDataflowResult;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Conditional constant propagation, which computes constants and
+ * executable CFG edges at the same time (Wegman and Zadeck).
+ * A statement is analyzed only after one of its incoming edges becomes
+ * executable, and the IN fact of a statement only meets the OUT facts
+ * along executable edges, so that statements on infeasible branches
+ * neither run nor pollute the facts at merge points.
+ */
+public class ConditionalConstantPropagation extends MethodAnalysis {
+
+    public static final String ID = "cond-constprop";
+
+    private final ConstantPropagation cp;
+
+    public ConditionalConstantPropagation(AnalysisConfig config) {
+        super(config);
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+    }
+
+    @Override
+    public Result analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        ConstantPropagation cp = this.cp.forMethod(ir);
+        DataflowResult<Stmt, CPFact> constants = ArrayDataflowResult.of(cfg);
+        for (Stmt node : cfg.getNodes()) {
+            constants.setInFact(node, cp.newInitialFact());
+            constants.setOutFact(node, cp.newInitialFact());
+        }
+        Stmt entry = cfg.getEntry();
+        constants.setOutFact(entry, cp.newBoundaryFact(cfg));
+        Set<Edge<Stmt>> executable = new HashSet<>();
+        Set<Stmt> reachable = new HashSet<>();
+        reachable.add(entry);
+        Queue<Stmt> workList = new LinkedList<>();
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(entry)) {
+            executable.add(edge);
+            workList.add(edge.getTarget());
+        }
+        // branches whose conditions are still UNDEF
+        Set<Stmt> pending = new LinkedHashSet<>();
+        while (true) {
+            while (!workList.isEmpty()) {
+                Stmt node = workList.poll();
+                CPFact in = cp.newInitialFact();
+                for (Edge<Stmt> edge : cfg.getInEdgesOf(node)) {
+                    if (executable.contains(edge)) {
+                        cp.meetInto(constants.getOutFact(edge.getSource()), in);
+                    }
+                }
+                constants.setInFact(node, in);
+                boolean changed = cp.transferNode(node, in, constants.getOutFact(node));
+                changed |= reachable.add(node);
+                List<Edge<Stmt>> feasible = getFeasibleOutEdges(cfg, node, in);
+                if (feasible == null) {
+                    pending.add(node);
+                    continue;
+                }
+                pending.remove(node);
+                for (Edge<Stmt> edge : feasible) {
+                    if (executable.add(edge) || changed) {
+                        workList.add(edge.getTarget());
+                    }
+                }
+            }
+            if (pending.isEmpty()) {
+                break;
+            }
+            // conditions that are UNDEF at the fixed point (e.g., the
+            // result of division by zero) may go either way
+            for (Stmt node : pending) {
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                    if (executable.add(edge)) {
+                        workList.add(edge.getTarget());
+                    }
+                }
+            }
+            pending.clear();
+        }
+        return new Result(constants, executable, reachable);
+    }
+
+    /**
+     * @return the out edges of node that may be taken under given IN fact,
+     * or null if the branch condition of node is still UNDEF.
+     */
+    private static List<Edge<Stmt>> getFeasibleOutEdges(
+            CFG<Stmt> cfg, Stmt node, CPFact in) {
+        if (node instanceof If ifStmt) {
+            ConditionExp cond = ifStmt.getCondition();
+            if (!ConstantPropagation.canHoldInt(cond.getOperand1()) ||
+                    !ConstantPropagation.canHoldInt(cond.getOperand2())) {
+                return new ArrayList<>(cfg.getOutEdgesOf(node));
+            }
+            Value res = ConstantPropagation.evaluate(cond, in);
+            if (res.isUndef()) {
+                return null;
+            }
+            if (res.isNAC()) {
+                return new ArrayList<>(cfg.getOutEdgesOf(node));
+            }
+            Edge.Kind kind = res.getConstant() == 1 ?
+                    Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
+            return cfg.getOutEdgesOf(node).stream()
+                    .filter(edge -> edge.getKind() == kind)
+                    .toList();
+        }
+        if (node instanceof SwitchStmt switchStmt) {
+            Value res = in.get(switchStmt.getVar());
+            if (res.isUndef()) {
+                return null;
+            }
+            if (res.isNAC()) {
+                return new ArrayList<>(cfg.getOutEdgesOf(node));
+            }
+            List<Edge<Stmt>> cases = cfg.getOutEdgesOf(node).stream()
+                    .filter(edge -> edge.isSwitchCase() &&
+                            edge.getCaseValue() == res.getConstant())
+                    .toList();
+            if (!cases.isEmpty()) {
+                return cases;
+            }
+            return cfg.getOutEdgesOf(node).stream()
+                    .filter(edge -> edge.getKind() == Edge.Kind.SWITCH_DEFAULT)
+                    .toList();
+        }
+        return new ArrayList<>(cfg.getOutEdgesOf(node));
+    }
+
+    /**
+     * Result of conditional constant propagation.
+     */
+    public static class Result {
+
+        private final DataflowResult<Stmt, CPFact> constants;
+
+        private final Set<Edge<Stmt>> executableEdges;
+
+        private final Set<Stmt> reachableStmts;
+
+        private Result(DataflowResult<Stmt, CPFact> constants,
+                       Set<Edge<Stmt>> executableEdges,
+                       Set<Stmt> reachableStmts) {
+            this.constants = constants;
+            this.executableEdges = Collections.unmodifiableSet(executableEdges);
+            this.reachableStmts = Collections.unmodifiableSet(reachableStmts);
+        }
+
+        /**
+         * @return constants at each statement. Facts of unreachable
+         * statements are empty.
+         */
+        public DataflowResult<Stmt, CPFact> getConstants() {
+            return constants;
+        }
+
+        public Set<Edge<Stmt>> getExecutableEdges() {
+            return executableEdges;
+        }
+
+        public boolean isExecutable(Edge<Stmt> edge) {
+            return executableEdges.contains(edge);
+        }
+
+        public boolean isReachable(Stmt stmt) {
+            return reachableStmts.contains(stmt);
+        }
+    }
+}
@@ -22,8 +22,11 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConditionalConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
@@ -46,14 +49,22 @@ import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    private static final Logger logger = LogManager.getLogger(DeadCodeDetection.class);
+
+    /**
+     * ID of the analysis whose constants (and live variables, for the
+     * fused analysis) are used, which must have been run before.
+     */
+    private final String constantsId;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        constantsId = getConstantsId(this);
     }
 
     @Override
@@ -61,72 +72,117 @@ public class DeadCodeDetection extends MethodAnalysis {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
-        DataflowResult<Stmt, CPFact> constants =
-                ir.getResult(ConstantPropagation.ID);
+        DataflowResult<Stmt, CPFact> constants = getConstants(ir, constantsId);
+        // obtain executable edges of conditional constant propagation if selected
+        ConditionalConstantPropagation.Result condConstants =
+                getCondConstants(ir, constantsId);
         // obtain result of live variable analysis
         DataflowResult<Stmt, SetFact<Var>> liveVars =
+                constantsId.equals(FusedConstLiveAnalysis.ID) ?
+                ir.<FusedConstLiveAnalysis.Result>getResult(FusedConstLiveAnalysis.ID).liveVars() :
                 ir.getResult(LiveVariableAnalysis.ID);
-        // keep statements (dead code) sorted in the resulting set
-        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-
         // TODO - finish me
         // Your task is to recognize dead code in ir and add it to deadCode
-        Set<Stmt> liveCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        Queue<Stmt> queue = new LinkedList<>();
-        queue.add(cfg.getEntry());
-        while(!queue.isEmpty()){
-            Stmt stmt = queue.poll();
+        StmtReachability reachability = new StmtReachability(cfg);
+        // branch targets are only looked up if the branches are not resolved by SCCP
+        BranchTable branches = condConstants == null ? BranchTable.of(cfg) : null;
+        reachability.add(cfg.getEntry());
+        while(reachability.hasNext()){
+            Stmt stmt = reachability.next();
             if(stmt instanceof AssignStmt<?,?> s && s.getLValue() instanceof Var var) {
                 if(!liveVars.getResult(stmt).contains(var) && hasNoSideEffect(s.getRValue())) {
-                    queue.addAll(cfg.getSuccsOf(stmt));
+                    reachability.addAll(cfg.getSuccsOf(stmt));
                     continue;
                 }
             }
-            if(!liveCode.add(stmt)){
-                continue;
-            }
-            if(stmt instanceof If s){
-                Value res = ConstantPropagation.evaluate(s.getCondition(), constants.getInFact(stmt));
-                if(res.isConstant()){
-                    for(Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                        if((res.getConstant() == 1 && edge.getKind() == Edge.Kind.IF_TRUE) ||
-                                (res.getConstant() == 0 && edge.getKind() == Edge.Kind.IF_FALSE)) {
-                            queue.add(edge.getTarget());
-                        }
-                    }
-                }else{
-                    queue.addAll(cfg.getSuccsOf(stmt));
-                }
-            }else if(stmt instanceof SwitchStmt s){
-                Value res = ConstantPropagation.evaluate(s.getVar(), constants.getInFact(stmt));
-                if(res.isConstant()){
-                    AtomicBoolean gone = new AtomicBoolean(false);
-                    s.getCaseTargets().stream().filter(cse -> cse.first() == res.getConstant()).forEach(cse -> {
-                        gone.set(true);
-                        queue.add(cse.second());
-                    });
-                    if(!gone.get()){
-                        queue.add(s.getDefaultTarget());
-                    }
-                }else{
-                    queue.addAll(cfg.getSuccsOf(stmt));
-                }
-            }else{
-                queue.addAll(cfg.getSuccsOf(stmt));
-            }
+            reachability.mark(stmt);
+            reachability.addAll(getFeasibleSuccs(cfg, branches, stmt, constants, condConstants));
         }
-        deadCode.addAll(cfg.getNodes());
-        deadCode.removeAll(liveCode);
-        deadCode.remove(cfg.getExit());
+        // keep statements (dead code) sorted in the resulting set
+        Set<Stmt> deadCode = reachability.getUnmarked();
 
         return deadCode;
     }
 
-    private void insert(Set<Stmt> liveStmt, Queue<Stmt> queue, Stmt node){
-        if(!liveStmt.contains(node)){
-            queue.add(node);
-            queue.add(node);
+    /**
+     * Returns the ID of the analysis which provides the constants for
+     * given analysis. It is chosen by the "constants" option, which may be
+     * {@link ConstantPropagation#ID} (the default),
+     * {@link ConditionalConstantPropagation#ID} or
+     * {@link FusedConstLiveAnalysis#ID}.
+     */
+    static String getConstantsId(MethodAnalysis analysis) {
+        String id = ConstantPropagation.ID;
+        if (analysis.getOptions().has("constants")) {
+            id = analysis.getOptions().getString("constants");
+        }
+        if (!id.equals(ConstantPropagation.ID) &&
+                !id.equals(ConditionalConstantPropagation.ID) &&
+                !id.equals(FusedConstLiveAnalysis.ID)) {
+            throw new IllegalArgumentException("Unknown source of constants: " + id);
+        }
+        logger.info("{} uses constants of {}", analysis.getClass().getSimpleName(), id);
+        return id;
+    }
+
+    /**
+     * @return the constants computed by the analysis of given ID,
+     * which must have been stored in given IR.
+     */
+    static DataflowResult<Stmt, CPFact> getConstants(IR ir, String constantsId) {
+        return switch (constantsId) {
+            case FusedConstLiveAnalysis.ID -> ir.<FusedConstLiveAnalysis.Result>getResult(
+                    FusedConstLiveAnalysis.ID).constants();
+            case ConditionalConstantPropagation.ID -> ir.<ConditionalConstantPropagation.Result>getResult(
+                    ConditionalConstantPropagation.ID).getConstants();
+            default -> ir.getResult(ConstantPropagation.ID);
+        };
+    }
+
+    /**
+     * @return the result of conditional constant propagation stored in
+     * given IR if it is the analysis of given ID, otherwise null.
+     */
+    static ConditionalConstantPropagation.Result getCondConstants(IR ir, String constantsId) {
+        return constantsId.equals(ConditionalConstantPropagation.ID) ?
+                ir.getResult(ConditionalConstantPropagation.ID) : null;
+    }
+
+    /**
+     * @return the successors of stmt which may be executed, i.e., the
+     * taken target of a branch whose condition is constant, otherwise
+     * all successors.
+     *
+     * @param branches branch targets of the method, which may be null
+     *                 if condConstants is given
+     */
+    static Collection<Stmt> getFeasibleSuccs(
+            CFG<Stmt> cfg, BranchTable branches, Stmt stmt,
+            DataflowResult<Stmt, CPFact> constants,
+            ConditionalConstantPropagation.Result condConstants) {
+        if(condConstants != null && (stmt instanceof If || stmt instanceof SwitchStmt)){
+            // branches have been resolved together with the constants
+            List<Stmt> succs = new ArrayList<>();
+            for(Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if(condConstants.isExecutable(edge)) {
+                    succs.add(edge.getTarget());
+                }
+            }
+            return succs;
+        }
+        if(stmt instanceof If s){
+            Value res = ConstantPropagation.evaluate(s.getCondition(), constants.getInFact(stmt));
+            if(res.isConstant()){
+                Stmt target = branches.getTarget(s, res.getConstant() == 1);
+                return target != null ? List.of(target) : List.of();
+            }
+        }else if(stmt instanceof SwitchStmt s){
+            Value res = ConstantPropagation.evaluate(s.getVar(), constants.getInFact(stmt));
+            if(res.isConstant()){
+                return List.of(branches.getTarget(s, res.getConstant()));
+            }
         }
+        return cfg.getSuccsOf(stmt);
     }
 
     /**
@@ -0,0 +1,84 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConditionalConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Materializes the {@link PrunedIR} of a method from the results of
+ * {@link DeadCodeDetection}, so that the analyses running afterwards
+ * (e.g., call graph construction and inter-procedural constant
+ * propagation) skip the code proven dead. It must run after dead code
+ * detection, and must be given the same "constants" option.
+ */
+public class DeadCodePruning extends MethodAnalysis {
+
+    public static final String ID = PrunedIR.ID;
+
+    /**
+     * ID of the analysis whose constants are used, chosen by the
+     * "constants" option as for {@link DeadCodeDetection}.
+     */
+    private final String constantsId;
+
+    public DeadCodePruning(AnalysisConfig config) {
+        super(config);
+        constantsId = DeadCodeDetection.getConstantsId(this);
+    }
+
+    @Override
+    public PrunedIR analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Set<Stmt> deadCode = ir.getResult(DeadCodeDetection.ID);
+        DataflowResult<Stmt, CPFact> constants = DeadCodeDetection.getConstants(ir, constantsId);
+        ConditionalConstantPropagation.Result condConstants =
+                DeadCodeDetection.getCondConstants(ir, constantsId);
+        // branch targets are only looked up if the branches are not resolved by SCCP
+        BranchTable branches = condConstants == null ? BranchTable.of(cfg) : null;
+        // collects the reachable statements and their feasible successors
+        Map<Stmt, Set<Stmt>> feasibleSuccs = new HashMap<>();
+        StmtReachability reachability = new StmtReachability(cfg);
+        reachability.add(cfg.getEntry());
+        while (reachability.hasNext()) {
+            Stmt stmt = reachability.next();
+            Set<Stmt> succs = new LinkedHashSet<>(DeadCodeDetection.getFeasibleSuccs(
+                    cfg, branches, stmt, constants, condConstants));
+            feasibleSuccs.put(stmt, succs);
+            reachability.addAll(succs);
+        }
+        return new PrunedIR(cfg, feasibleSuccs, deadCode);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConditionalConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Writes the dead code of each method as a line of JSON to a file as soon
+ * as the method is analyzed, and then releases the data-flow results of
+ * the method, so that memory does not grow with the size of the program.
+ * <p>
+ * Each line is {@code {"method":...,"deadCode":[{"index":...,"line":...,
+ * "stmt":...},...]}}. Methods may be reported concurrently and in any
+ * order: every report carries the sequence number of its method, and
+ * lines are buffered until all lines before them have been written,
+ * so the output is in sequence order regardless of the scheduling.
+ * To bound the lines held back, producers may call {@link #await(int)}
+ * before analyzing a method, which blocks while the method is too far
+ * ahead of the next line to write.
+ */
+public class DeadCodeReporter implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(DeadCodeReporter.class);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int DEFAULT_MAX_PENDING = 1024;
+
+    /**
+     * Results which are released after a method is reported.
+     */
+    private static final List<String> RELEASED_RESULTS = List.of(
+            LiveVariableAnalysis.ID, ConstantPropagation.ID,
+            ConditionalConstantPropagation.ID, FusedConstLiveAnalysis.ID,
+            DeadCodeDetection.ID);
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Lines which arrived before the lines preceding them.
+     */
+    private final Map<Integer, byte[]> pending = new HashMap<>();
+
+    /**
+     * Sequence number of the next line to write.
+     */
+    private int next = 0;
+
+    private long count = 0;
+
+    /**
+     * Maximum distance between the sequence number of a method being
+     * analyzed and {@link #next}, see {@link #await(int)}.
+     */
+    private final int maxPending;
+
+    /**
+     * Whether {@link #await(int)} may block, which is turned off by
+     * {@link #release()}.
+     */
+    private boolean bounded = true;
+
+    public DeadCodeReporter(Path output) {
+        this(output, DEFAULT_MAX_PENDING);
+    }
+
+    public DeadCodeReporter(Path output, int maxPending) {
+        this.maxPending = maxPending;
+        try {
+            channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reports the dead code stored in the IR of given method, and releases
+     * the data-flow results of the method. Methods on which dead code
+     * detection has not run are skipped.
+     *
+     * @param seq sequence number of the method, which determines the
+     *            position of its line in the output. Each number from 0
+     *            must be reported exactly once.
+     */
+    public void report(int seq, JMethod method) {
+        IR ir = method.getIR();
+        if (!ir.hasResult(DeadCodeDetection.ID)) {
+            skip(seq);
+            return;
+        }
+        Set<Stmt> deadCode = ir.getResult(DeadCodeDetection.ID);
+        byte[] line = toJson(method, deadCode).getBytes(StandardCharsets.UTF_8);
+        RELEASED_RESULTS.forEach(ir::clearResult);
+        write(seq, line);
+    }
+
+    /**
+     * Skips the line of given sequence number, e.g., for a method which
+     * is not analyzed, so that the following lines are not held back.
+     */
+    public void skip(int seq) {
+        write(seq, null);
+    }
+
+    /**
+     * Blocks the calling thread while given sequence number is at least
+     * {@code maxPending} ahead of the next line to write. The thread is
+     * blocked via {@link ForkJoinPool#managedBlock}, so a fork-join pool
+     * may start another worker to analyze the methods being waited for.
+     * The caller must not be in the middle of analyzing another method
+     * which is not reported yet, as that method may be the one waited for.
+     */
+    public void await(int seq) {
+        if (isWithinBound(seq)) {
+            return;
+        }
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    synchronized (DeadCodeReporter.this) {
+                        while (!isWithinBound(seq)) {
+                            DeadCodeReporter.this.wait();
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return isWithinBound(seq);
+                }
+            });
+        } catch (InterruptedException e) {
+            // gives up bounding the buffer
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized boolean isWithinBound(int seq) {
+        return !bounded || seq - next < maxPending;
+    }
+
+    /**
+     * Stops blocking in {@link #await(int)}, e.g., after the analysis of
+     * a method failed, as the methods after it may be cancelled and never
+     * reported. The lines after missing ones are written by {@link #close()}.
+     */
+    public synchronized void release() {
+        bounded = false;
+        notifyAll();
+    }
+
+    private synchronized void write(int seq, byte[] line) {
+        if (seq != next) {
+            pending.put(seq, line);
+            return;
+        }
+        writeLine(line);
+        ++next;
+        // releases the lines which were waiting for this one
+        while (pending.containsKey(next)) {
+            writeLine(pending.remove(next));
+            ++next;
+        }
+        notifyAll();
+    }
+
+    private void writeLine(byte[] line) {
+        if (line == null) {
+            return;
+        }
+        ++count;
+        try {
+            if (line.length > buffer.remaining()) {
+                flush();
+                if (line.length > buffer.capacity()) {
+                    ByteBuffer wrapped = ByteBuffer.wrap(line);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped);
+                    }
+                    return;
+                }
+            }
+            buffer.put(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the lines still held back (in sequence order, in case some
+     * sequence numbers were never reported), and closes the output.
+     */
+    @Override
+    public synchronized void close() {
+        if (!pending.isEmpty()) {
+            logger.warn("{} methods are reported after missing ones", pending.size());
+            new TreeMap<>(pending).values().forEach(this::writeLine);
+            pending.clear();
+        }
+        try {
+            flush();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Reported dead code of {} methods", count);
+    }
+
+    private static String toJson(JMethod method, Set<Stmt> deadCode) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"method\":");
+        appendString(sb, method.getSignature());
+        sb.append(",\"deadCode\":[");
+        boolean first = true;
+        for (Stmt stmt : deadCode) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"index\":").append(stmt.getIndex())
+                    .append(",\"line\":").append(stmt.getLineNumber())
+                    .append(",\"stmt\":");
+            appendString(sb, stmt.toString());
+            sb.append('}');
+        }
+        return sb.append("]}\n").toString();
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
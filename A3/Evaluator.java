@@ -0,0 +1,39 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+/**
+ * Evaluates the {@link Value} of an expression under given IN fact.
+ * Evaluators are compiled from expressions by {@link Evaluators#compile},
+ * so that the type of expression and its operator are resolved once,
+ * instead of on every transfer.
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+    /**
+     * @param in IN fact of the statement containing the expression
+     * @return the resulting {@link Value}
+     */
+    Value evaluate(CPFact in);
+}
@@ -0,0 +1,187 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.ArrayDataflowResult;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.CFGOrders;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes constant propagation and live variable analysis of a method
+ * in one run, which is what dead code detection needs. The CFG is
+ * numbered in reverse post-order and converted into adjacency arrays once,
+ * then constants are solved by a forward pass and live variables by
+ * a backward pass over the same arrays.
+ */
+public class FusedConstLiveAnalysis extends MethodAnalysis {
+
+    public static final String ID = "const-live";
+
+    private final ConstantPropagation cp;
+
+    private final LiveVariableAnalysis lva;
+
+    public FusedConstLiveAnalysis(AnalysisConfig config) {
+        super(config);
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        lva = new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID));
+    }
+
+    @Override
+    public Result analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Graph graph = new Graph(cfg);
+        return new Result(solveConstants(cfg, graph), solveLiveVars(cfg, graph));
+    }
+
+    private DataflowResult<Stmt, CPFact> solveConstants(CFG<Stmt> cfg, Graph graph) {
+        ConstantPropagation cp = this.cp.forMethod(cfg.getIR());
+        DataflowResult<Stmt, CPFact> result = ArrayDataflowResult.of(cfg);
+        Stmt[] nodes = graph.nodes;
+        for (Stmt node : nodes) {
+            result.setOutFact(node, node == cfg.getEntry() ?
+                    cp.newBoundaryFact(cfg) : cp.newInitialFact());
+        }
+        result.setInFact(cfg.getEntry(), cp.newInitialFact());
+        // the entry is at position 0, and its OUT is the boundary fact
+        BitSet workList = new BitSet(nodes.length);
+        workList.set(1, nodes.length);
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            Stmt node = nodes[i];
+            CPFact in = cp.newInitialFact();
+            for (int pred : graph.preds[i]) {
+                cp.meetInto(result.getOutFact(nodes[pred]), in);
+            }
+            boolean changed;
+            if (cp.isIdentity(node)) {
+                changed = !in.equals(result.getOutFact(node));
+                result.setOutFact(node, in);
+            } else {
+                changed = cp.transferNode(node, in, result.getOutFact(node));
+            }
+            result.setInFact(node, in);
+            if (changed) {
+                for (int succ : graph.succs[i]) {
+                    workList.set(succ);
+                }
+            }
+        }
+        return result;
+    }
+
+    private DataflowResult<Stmt, SetFact<Var>> solveLiveVars(CFG<Stmt> cfg, Graph graph) {
+        LiveVariableAnalysis lva = this.lva.forMethod(cfg.getIR());
+        DataflowResult<Stmt, SetFact<Var>> result = ArrayDataflowResult.of(cfg);
+        Stmt[] nodes = graph.nodes;
+        for (Stmt node : nodes) {
+            result.setInFact(node, node == cfg.getExit() ?
+                    lva.newBoundaryFact(cfg) : lva.newInitialFact());
+            result.setOutFact(node, lva.newInitialFact());
+        }
+        // visiting the highest position first follows post-order
+        BitSet workList = new BitSet(nodes.length);
+        workList.set(0, nodes.length);
+        for (int i = workList.length() - 1; i >= 0; i = workList.length() - 1) {
+            workList.clear(i);
+            Stmt node = nodes[i];
+            if (node == cfg.getExit()) {
+                continue;
+            }
+            boolean changed;
+            if (lva.isIdentity(node)) {
+                SetFact<Var> out = lva.newInitialFact();
+                for (int succ : graph.succs[i]) {
+                    lva.meetInto(result.getInFact(nodes[succ]), out);
+                }
+                changed = !out.equals(result.getInFact(node));
+                result.setInFact(node, out);
+                result.setOutFact(node, out);
+            } else {
+                SetFact<Var> out = result.getOutFact(node);
+                for (int succ : graph.succs[i]) {
+                    lva.meetInto(result.getInFact(nodes[succ]), out);
+                }
+                changed = lva.transferNode(node, out, result.getInFact(node));
+            }
+            if (changed) {
+                for (int pred : graph.preds[i]) {
+                    workList.set(pred);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * CFG whose nodes are numbered in reverse post-order,
+     * with the edges stored as adjacency arrays.
+     */
+    private static class Graph {
+
+        private final Stmt[] nodes;
+
+        private final int[][] preds;
+
+        private final int[][] succs;
+
+        private Graph(CFG<Stmt> cfg) {
+            List<Stmt> order = CFGOrders.reversePostOrder(cfg);
+            nodes = order.toArray(new Stmt[0]);
+            Map<Stmt, Integer> position = new HashMap<>(nodes.length * 2);
+            for (int i = 0; i < nodes.length; ++i) {
+                position.put(nodes[i], i);
+            }
+            preds = new int[nodes.length][];
+            succs = new int[nodes.length][];
+            for (int i = 0; i < nodes.length; ++i) {
+                preds[i] = cfg.getPredsOf(nodes[i]).stream()
+                        .mapToInt(position::get).toArray();
+                succs[i] = cfg.getSuccsOf(nodes[i]).stream()
+                        .mapToInt(position::get).toArray();
+            }
+        }
+    }
+
+    /**
+     * Constants and live variables computed by {@link FusedConstLiveAnalysis}.
+     */
+    public record Result(DataflowResult<Stmt, CPFact> constants,
+                         DataflowResult<Stmt, SetFact<Var>> liveVars) {
+    }
+}
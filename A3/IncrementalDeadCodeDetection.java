@@ -0,0 +1,523 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.ArrayDataflowResult;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental mode of {@link DeadCodeDetection} for methods which are
+ * analyzed repeatedly while being edited. The results of each method are
+ * kept with a content hash of its IR and CFG edges:
+ * <ul>
+ *     <li>if the hash is unchanged, the cached dead code is returned
+ *     without building any analysis result;</li>
+ *     <li>if the parameters are unchanged, the statements of the two
+ *     versions are matched by a diff (longest common subsequence) of
+ *     their hashes, and a statement changed if it is unmatched, or if its
+ *     successors or predecessors do not match those of the old one. The
+ *     facts of the statements which cannot reach (for constants) or be
+ *     reached from (for live variables) the changed statements are reused,
+ *     and only the other statements are solved again;</li>
+ *     <li>otherwise, or if the differing parts are too large to diff,
+ *     the method is analyzed from scratch.</li>
+ * </ul>
+ * Methods are identified by signature, so results survive rebuilding the
+ * IR of a method. The CFGs of the methods must have been built.
+ */
+public class IncrementalDeadCodeDetection extends MethodAnalysis {
+
+    public static final String ID = "incremental-deadcode";
+
+    private static final Logger logger = LogManager.getLogger(IncrementalDeadCodeDetection.class);
+
+    private final ConstantPropagation cp;
+
+    private final LiveVariableAnalysis lva;
+
+    private final DeadCodeDetection deadCode;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public IncrementalDeadCodeDetection(AnalysisConfig config) {
+        super(config);
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        lva = new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID));
+        deadCode = new DeadCodeDetection(new AnalysisConfig(DeadCodeDetection.ID));
+    }
+
+    @Override
+    public Set<Stmt> analyze(IR ir) {
+        String key = ir.getMethod().getSignature();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Fingerprint fingerprint = Fingerprint.of(cfg);
+        Snapshot old = snapshots.get(key);
+        if (old != null && old.fingerprint().sameAs(fingerprint)) {
+            return old.ir() == ir ? old.deadCode() : translate(old.deadCode(), ir);
+        }
+        Diff diff = old != null ? Diff.of(old, cfg, fingerprint) : null;
+        DataflowResult<Stmt, CPFact> constants;
+        DataflowResult<Stmt, SetFact<Var>> liveVars;
+        if (diff == null) {
+            constants = cp.analyze(ir);
+            liveVars = lva.analyze(ir);
+        } else {
+            logger.debug("{}: {} of {} nodes changed", key,
+                    diff.changed().size(), cfg.getNumberOfNodes());
+            constants = updateConstants(cfg, diff);
+            liveVars = updateLiveVars(cfg, diff);
+        }
+        ir.storeResult(ConstantPropagation.ID, constants);
+        ir.storeResult(LiveVariableAnalysis.ID, liveVars);
+        Set<Stmt> result = deadCode.analyze(ir);
+        snapshots.put(key, new Snapshot(ir, cfg, fingerprint, constants, liveVars, result));
+        return result;
+    }
+
+    /**
+     * Discards the cached results of all methods.
+     */
+    public void clear() {
+        snapshots.clear();
+    }
+
+    /**
+     * Solves constants of the statements reachable from the changed ones,
+     * and reuses the facts of the other statements, which only depend on
+     * unchanged statements. As in the solver, the OUT fact of the entry
+     * is the boundary fact, and the entry is never transferred.
+     */
+    private DataflowResult<Stmt, CPFact> updateConstants(
+            CFG<Stmt> cfg, Diff diff) {
+        ConstantPropagation cp = this.cp.forMethod(cfg.getIR());
+        Set<Stmt> affected = closure(cfg, diff.changed(), true);
+        DataflowResult<Stmt, CPFact> old = diff.old().constants();
+        DataflowResult<Stmt, CPFact> result = ArrayDataflowResult.of(cfg);
+        for (Stmt node : cfg) {
+            if (node == cfg.getEntry()) {
+                result.setInFact(node, cp.newInitialFact());
+                result.setOutFact(node, cp.newBoundaryFact(cfg));
+            } else if (affected.contains(node)) {
+                result.setInFact(node, cp.newInitialFact());
+                result.setOutFact(node, cp.newInitialFact());
+            } else {
+                Stmt oldNode = diff.map(node);
+                result.setInFact(node, translate(old.getInFact(oldNode), diff));
+                result.setOutFact(node, translate(old.getOutFact(oldNode), diff));
+            }
+        }
+        Deque<Stmt> workList = new ArrayDeque<>(affected);
+        workList.remove(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            CPFact in = cp.newInitialFact();
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                cp.meetInto(result.getOutFact(pred), in);
+            }
+            result.setInFact(node, in);
+            if (cp.transferNode(node, in, result.getOutFact(node))) {
+                cfg.getSuccsOf(node).forEach(workList::add);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Solves live variables of the statements which reach the changed
+     * ones, and reuses the facts of the other statements, which only
+     * depend on unchanged statements. As in the solver, the IN fact of
+     * the exit is the boundary fact, and the exit is never transferred.
+     */
+    private DataflowResult<Stmt, SetFact<Var>> updateLiveVars(
+            CFG<Stmt> cfg, Diff diff) {
+        LiveVariableAnalysis lva = this.lva.forMethod(cfg.getIR());
+        Set<Stmt> affected = closure(cfg, diff.changed(), false);
+        DataflowResult<Stmt, SetFact<Var>> old = diff.old().liveVars();
+        DataflowResult<Stmt, SetFact<Var>> result = ArrayDataflowResult.of(cfg);
+        for (Stmt node : cfg) {
+            if (node == cfg.getExit()) {
+                result.setInFact(node, lva.newBoundaryFact(cfg));
+                result.setOutFact(node, lva.newInitialFact());
+            } else if (affected.contains(node)) {
+                result.setInFact(node, lva.newInitialFact());
+                result.setOutFact(node, lva.newInitialFact());
+            } else {
+                Stmt oldNode = diff.map(node);
+                result.setInFact(node, translate(old.getInFact(oldNode), diff));
+                result.setOutFact(node, translate(old.getOutFact(oldNode), diff));
+            }
+        }
+        Deque<Stmt> workList = new ArrayDeque<>(affected);
+        workList.remove(cfg.getExit());
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            SetFact<Var> out = lva.newInitialFact();
+            for (Stmt succ : cfg.getSuccsOf(node)) {
+                lva.meetInto(result.getInFact(succ), out);
+            }
+            result.setOutFact(node, out);
+            if (lva.transferNode(node, out, result.getInFact(node))) {
+                cfg.getPredsOf(node).forEach(workList::add);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the nodes reachable from the changed nodes (including
+     * themselves), along the CFG edges if forward is true, otherwise
+     * against them.
+     */
+    private static Set<Stmt> closure(CFG<Stmt> cfg, Set<Stmt> changed, boolean forward) {
+        Set<Stmt> closure = new LinkedHashSet<>();
+        Deque<Stmt> stack = new ArrayDeque<>(changed);
+        while (!stack.isEmpty()) {
+            Stmt node = stack.pop();
+            if (closure.add(node)) {
+                (forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node)).forEach(stack::push);
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @return given fact of the old IR with the variables of the new IR.
+     */
+    private CPFact translate(CPFact fact, Diff diff) {
+        CPFact result = cp.newInitialFact();
+        fact.forEach((var, value) -> {
+            Var newVar = diff.vars().get(var);
+            if (newVar != null) {
+                result.update(newVar, value);
+            }
+        });
+        return result;
+    }
+
+    private SetFact<Var> translate(SetFact<Var> fact, Diff diff) {
+        SetFact<Var> result = lva.newInitialFact();
+        fact.forEach(var -> {
+            Var newVar = diff.vars().get(var);
+            if (newVar != null) {
+                result.add(newVar);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return the statements of given IR at the indexes of given statements.
+     */
+    private static Set<Stmt> translate(Set<Stmt> stmts, IR ir) {
+        Set<Stmt> result = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        stmts.forEach(stmt -> result.add(ir.getStmt(stmt.getIndex())));
+        return result;
+    }
+
+    /**
+     * Results of the last analyzed version of a method.
+     */
+    private record Snapshot(IR ir, CFG<Stmt> cfg, Fingerprint fingerprint,
+                            DataflowResult<Stmt, CPFact> constants,
+                            DataflowResult<Stmt, SetFact<Var>> liveVars,
+                            Set<Stmt> deadCode) {
+    }
+
+    /**
+     * Matching between the nodes of a snapshot and of the new CFG of the
+     * same method.
+     *
+     * @param old        the snapshot
+     * @param cfg        the new CFG
+     * @param oldIndexes index of the matched old statement of each new
+     *                   statement, or -1 if the statement is unmatched
+     * @param changed    nodes of the new CFG which are unmatched, or whose
+     *                   successors or predecessors differ from those of
+     *                   the matched old nodes
+     * @param vars       variable of the new IR with the same name and type
+     *                   of each variable of the old IR
+     */
+    private record Diff(Snapshot old, CFG<Stmt> cfg, int[] oldIndexes,
+                        Set<Stmt> changed, Map<Var, Var> vars) {
+
+        /**
+         * @return the diff between given snapshot and new CFG, or null
+         * if they cannot be compared statement by statement.
+         */
+        private static Diff of(Snapshot old, CFG<Stmt> cfg, Fingerprint fingerprint) {
+            if (old.fingerprint().shape() != fingerprint.shape()) {
+                return null;
+            }
+            int[] oldIndexes = old.fingerprint().match(fingerprint);
+            if (oldIndexes == null) {
+                return null;
+            }
+            Map<String, Var> newVars = new HashMap<>();
+            cfg.getIR().getVars().forEach(var -> newVars.put(key(var), var));
+            Map<Var, Var> vars = new HashMap<>();
+            for (Var var : old.ir().getVars()) {
+                Var newVar = newVars.get(key(var));
+                if (newVar != null) {
+                    vars.put(var, newVar);
+                }
+            }
+            Diff diff = new Diff(old, cfg, oldIndexes, new LinkedHashSet<>(), vars);
+            for (Stmt node : cfg) {
+                Stmt oldNode = diff.map(node);
+                if (oldNode == null ||
+                        !diff.matches(cfg.getSuccsOf(node), old.cfg().getSuccsOf(oldNode)) ||
+                        !diff.matches(cfg.getPredsOf(node), old.cfg().getPredsOf(oldNode))) {
+                    diff.changed().add(node);
+                }
+            }
+            return diff;
+        }
+
+        private static String key(Var var) {
+            return var.getName() + ':' + var.getType();
+        }
+
+        /**
+         * @return the node of the snapshot which is matched with given
+         * node of the new CFG, or null if the node is unmatched.
+         */
+        private Stmt map(Stmt node) {
+            if (node == cfg.getEntry()) {
+                return old.cfg().getEntry();
+            }
+            if (node == cfg.getExit()) {
+                return old.cfg().getExit();
+            }
+            int oldIndex = oldIndexes[node.getIndex()];
+            return oldIndex >= 0 ? old.ir().getStmt(oldIndex) : null;
+        }
+
+        /**
+         * @return true if given new nodes are matched with exactly
+         * given old nodes.
+         */
+        private boolean matches(Set<Stmt> nodes, Set<Stmt> oldNodes) {
+            if (nodes.size() != oldNodes.size()) {
+                return false;
+            }
+            for (Stmt node : nodes) {
+                Stmt oldNode = map(node);
+                if (oldNode == null || !oldNodes.contains(oldNode)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Content hash of an IR, together with the hashes of its statements.
+     *
+     * @param hash  hash of the whole IR, including the edges of its CFG,
+     *              so that retargeting a jump changes it
+     * @param shape hash of the parameters
+     * @param stmts hash of each statement, which excludes its jump targets,
+     *              so that statements can be matched after other statements
+     *              are inserted or removed
+     */
+    private record Fingerprint(long hash, long shape, long[] stmts) {
+
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        /**
+         * Maximum size of the table of {@link #match(Fingerprint)}
+         * (16 MB), beyond which methods are analyzed from scratch.
+         */
+        private static final long MAX_DIFF_CELLS = 1 << 22;
+
+        private static Fingerprint of(CFG<Stmt> cfg) {
+            IR ir = cfg.getIR();
+            long shape = FNV_OFFSET;
+            for (Var param : ir.getParams()) {
+                shape = hash(shape, param.getName() + ':' + param.getType());
+            }
+            long[] stmts = new long[ir.getStmts().size()];
+            long hash = shape;
+            for (Stmt stmt : ir) {
+                long h = hash(FNV_OFFSET, describe(stmt));
+                stmts[stmt.getIndex()] = h;
+                hash = hash * FNV_PRIME ^ h;
+            }
+            for (Stmt node : cfg) {
+                // the out edges are unordered, thus their hashes are summed
+                long edges = 0;
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                    edges += hash(FNV_OFFSET, describe(cfg, edge));
+                }
+                hash = hash * FNV_PRIME ^ edges;
+            }
+            return new Fingerprint(hash, shape, stmts);
+        }
+
+        /**
+         * @return the kind, case value and ends of given edge, where the
+         * entry and exit are denoted by -1 and -2.
+         */
+        private static String describe(CFG<Stmt> cfg, Edge<Stmt> edge) {
+            StringBuilder sb = new StringBuilder(edge.getKind().name());
+            if (edge.isSwitchCase()) {
+                sb.append(' ').append(edge.getCaseValue());
+            }
+            return sb.append(' ').append(index(cfg, edge.getSource()))
+                    .append(' ').append(index(cfg, edge.getTarget()))
+                    .toString();
+        }
+
+        private static int index(CFG<Stmt> cfg, Stmt node) {
+            return node == cfg.getEntry() ? -1 :
+                    node == cfg.getExit() ? -2 : node.getIndex();
+        }
+
+        /**
+         * @return the text of given statement without jump targets (which
+         * are CFG edges and compared by {@link Diff}) and line numbers
+         * (as edits elsewhere shift them), followed by the types of the
+         * variables it defines and uses.
+         */
+        private static String describe(Stmt stmt) {
+            StringBuilder sb = new StringBuilder(stmt.getClass().getName()).append(' ');
+            if (stmt instanceof If s) {
+                sb.append("if ").append(s.getCondition());
+            } else if (stmt instanceof Goto) {
+                sb.append("goto");
+            } else if (stmt instanceof SwitchStmt s) {
+                sb.append("switch ").append(s.getVar()).append(' ').append(s.getCaseValues());
+            } else {
+                sb.append(stmt);
+            }
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var) {
+                    sb.append(' ').append(var.getType());
+                }
+            });
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    sb.append(' ').append(var.getType());
+                }
+            }
+            return sb.toString();
+        }
+
+        private static long hash(long h, String s) {
+            for (int i = 0; i < s.length(); ++i) {
+                h = (h ^ s.charAt(i)) * FNV_PRIME;
+            }
+            return h;
+        }
+
+        /**
+         * @return true if this and given fingerprint are equal, i.e., the
+         * hashes of the IRs and CFG edges, their parameters, and all
+         * statements are equal.
+         */
+        private boolean sameAs(Fingerprint other) {
+            return hash == other.hash && shape == other.shape &&
+                    Arrays.equals(stmts, other.stmts);
+        }
+
+        /**
+         * Matches the statements of this and given fingerprint by a longest
+         * common subsequence of their hashes, after trimming the common
+         * prefix and suffix.
+         *
+         * @return the index of the matched statement of this fingerprint for
+         * each statement of other (-1 if unmatched), or null if the parts
+         * in between are too large to diff.
+         */
+        private int[] match(Fingerprint other) {
+            long[] a = stmts, b = other.stmts;
+            int[] matches = new int[b.length];
+            Arrays.fill(matches, -1);
+            int prefix = 0;
+            while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+                matches[prefix] = prefix;
+                ++prefix;
+            }
+            int n = a.length - prefix, m = b.length - prefix;
+            while (n > 0 && m > 0 && a[prefix + n - 1] == b[prefix + m - 1]) {
+                matches[prefix + m - 1] = prefix + n - 1;
+                --n;
+                --m;
+            }
+            if ((long) (n + 1) * (m + 1) > MAX_DIFF_CELLS) {
+                return null;
+            }
+            // lcs[i][j]: length of LCS of a[prefix + i..] and b[prefix + j..]
+            int[][] lcs = new int[n + 1][m + 1];
+            for (int i = n - 1; i >= 0; --i) {
+                for (int j = m - 1; j >= 0; --j) {
+                    lcs[i][j] = a[prefix + i] == b[prefix + j] ?
+                            lcs[i + 1][j + 1] + 1 :
+                            Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+                }
+            }
+            for (int i = 0, j = 0; i < n && j < m; ) {
+                if (a[prefix + i] == b[prefix + j]) {
+                    matches[prefix + j] = prefix + i;
+                    ++i;
+                    ++j;
+                } else if (lcs[i + 1][j] >= lcs[i][j + 1]) {
+                    ++i;
+                } else {
+                    ++j;
+                }
+            }
+            return matches;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of classic live variable analysis.
+ */
+public class LiveVariableAnalysis extends AbstractBitVectorAnalysis<Stmt> {
+
+    public static final String ID = "livevar";
+
+    public LiveVariableAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    private LiveVariableAnalysis(AnalysisConfig config, IR ir) {
+        super(config, ir);
+    }
+
+    @Override
+    protected LiveVariableAnalysis newInstance(AnalysisConfig config, IR ir) {
+        return new LiveVariableAnalysis(config, ir);
+    }
+
+    @Override
+    public LiveVariableAnalysis forMethod(IR ir) {
+        return (LiveVariableAnalysis) super.forMethod(ir);
+    }
+
+    @Override
+    public boolean isForward() {
+        return false;
+    }
+
+    // 公式：IN[B] = use_B U (OUT[B]-def[B])
+    @Override
+    protected Collection<Var> getGen(Stmt stmt) {
+        // use_B
+        List<Var> uses = new ArrayList<>();
+        stmt.getUses().forEach(use -> {
+            if (use instanceof Var var) {
+                uses.add(var);
+            }
+        });
+        return uses;
+    }
+
+    @Override
+    protected Collection<Var> getKill(Stmt stmt) {
+        // def_B
+        return stmt.getDef().orElse(null) instanceof Var def ?
+                List.of(def) : List.of();
+    }
+}
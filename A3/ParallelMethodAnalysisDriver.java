@@ -0,0 +1,379 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.CompactDataflowResult;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs intra-procedural analyses on many methods in parallel.
+ * The analyses are organized in stages: analyses in the same stage are
+ * independent of each other, and each stage may use the results of the
+ * previous stages. Methods are processed on a fork-join pool with work
+ * stealing, and every method goes through the stages in order.
+ * <p>
+ * The results stored in each {@link IR} do not depend on the scheduling,
+ * as every analysis only reads the IR of the method it analyzes.
+ * <p>
+ * Optionally, the data-flow results of each method are replaced by
+ * {@link CompactDataflowResult}s after all stages finish on the method,
+ * or the dead code of each method is written by a {@link DeadCodeReporter},
+ * which then releases the results of the method.
+ */
+public class ParallelMethodAnalysisDriver {
+
+    private static final Logger logger = LogManager.getLogger(ParallelMethodAnalysisDriver.class);
+
+    private final List<List<MethodAnalysis>> stages;
+
+    private final int parallelism;
+
+    private final boolean compact;
+
+    private final DeadCodeReporter reporter;
+
+    /**
+     * Methods being analyzed on the stack of each thread.
+     */
+    private final ThreadLocal<Progress> analyzing = ThreadLocal.withInitial(Progress::new);
+
+    private final LongAdder originalReferences = new LongAdder();
+
+    private final LongAdder compactReferences = new LongAdder();
+
+    /**
+     * @param stages      analyses grouped by dependency order
+     * @param parallelism number of worker threads
+     */
+    public ParallelMethodAnalysisDriver(List<List<MethodAnalysis>> stages, int parallelism) {
+        this(stages, parallelism, false);
+    }
+
+    /**
+     * @param stages      analyses grouped by dependency order
+     * @param parallelism number of worker threads
+     * @param compact     whether to compact the data-flow results
+     */
+    public ParallelMethodAnalysisDriver(List<List<MethodAnalysis>> stages,
+                                        int parallelism, boolean compact) {
+        this(stages, parallelism, compact, null);
+    }
+
+    /**
+     * @param stages      analyses grouped by dependency order
+     * @param parallelism number of worker threads
+     * @param compact     whether to compact the data-flow results
+     * @param reporter    reporter of the dead code of each method, or null.
+     *                    Methods are reported in the order they are given
+     *                    to {@link #run}, and the reporter is not closed
+     *                    by this driver.
+     */
+    public ParallelMethodAnalysisDriver(List<List<MethodAnalysis>> stages,
+                                        int parallelism, boolean compact,
+                                        DeadCodeReporter reporter) {
+        this.stages = stages;
+        this.parallelism = parallelism;
+        this.compact = compact;
+        this.reporter = reporter;
+    }
+
+    /**
+     * Creates a driver for the dead code detection pipeline, i.e.,
+     * live variable analysis and constant propagation, then dead code
+     * detection. The CFGs of the analyzed methods must have been built.
+     */
+    public static ParallelMethodAnalysisDriver forDeadCode(int parallelism) {
+        return forDeadCode(parallelism, false);
+    }
+
+    /**
+     * Creates a driver for the dead code detection pipeline, which
+     * compacts the results of live variable analysis and constant
+     * propagation if compact is true.
+     */
+    public static ParallelMethodAnalysisDriver forDeadCode(int parallelism, boolean compact) {
+        return new ParallelMethodAnalysisDriver(List.of(
+                List.of(new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID)),
+                        new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID))),
+                List.of(new DeadCodeDetection(new AnalysisConfig(DeadCodeDetection.ID)))
+        ), parallelism, compact);
+    }
+
+    /**
+     * Creates a driver for the dead code detection pipeline, which
+     * writes the dead code of each method by given reporter as soon as
+     * the method is analyzed.
+     */
+    public static ParallelMethodAnalysisDriver forDeadCode(
+            int parallelism, DeadCodeReporter reporter) {
+        return new ParallelMethodAnalysisDriver(List.of(
+                List.of(new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID)),
+                        new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID))),
+                List.of(new DeadCodeDetection(new AnalysisConfig(DeadCodeDetection.ID)))
+        ), parallelism, false, reporter);
+    }
+
+    /**
+     * Creates a driver for the dead code detection pipeline, which
+     * computes constants and live variables in one fused run.
+     */
+    public static ParallelMethodAnalysisDriver forFusedDeadCode(int parallelism) {
+        return new ParallelMethodAnalysisDriver(List.of(
+                List.of(new FusedConstLiveAnalysis(new AnalysisConfig(FusedConstLiveAnalysis.ID))),
+                List.of(new DeadCodeDetection(new AnalysisConfig(DeadCodeDetection.ID,
+                        "constants", FusedConstLiveAnalysis.ID)))
+        ), parallelism);
+    }
+
+    /**
+     * Creates a driver for the dead code detection pipeline, followed by
+     * {@link DeadCodePruning}, so that the analyses running afterwards
+     * can skip the dead code.
+     */
+    public static ParallelMethodAnalysisDriver forDeadCodePruning(int parallelism) {
+        return new ParallelMethodAnalysisDriver(List.of(
+                List.of(new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID)),
+                        new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID))),
+                List.of(new DeadCodeDetection(new AnalysisConfig(DeadCodeDetection.ID))),
+                List.of(new DeadCodePruning(new AnalysisConfig(DeadCodePruning.ID)))
+        ), parallelism);
+    }
+
+    /**
+     * Runs all stages on given methods, and stores the results in their IRs.
+     *
+     * @return time (in nanoseconds) spent on the stages of each method,
+     * in the same order as given methods. The work of other methods run
+     * by the same thread while it joins the tasks of a method is excluded.
+     */
+    public Map<JMethod, Long> run(List<JMethod> methods) {
+        long[] times = new long[methods.size()];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RangeTask(methods, times, 0, methods.size()));
+        } finally {
+            pool.shutdown();
+        }
+        Map<JMethod, Long> result = new LinkedHashMap<>();
+        long total = 0;
+        for (int i = 0; i < methods.size(); ++i) {
+            result.put(methods.get(i), times[i]);
+            total += times[i];
+            logger.debug("{} analyzed in {} ms", methods.get(i), times[i] / 1_000_000.0);
+        }
+        logger.info("Analyzed {} methods with {} threads, {} ms of work in total",
+                methods.size(), parallelism, total / 1_000_000);
+        if (compact) {
+            logger.info("Compacted data-flow results from {} to {} references",
+                    originalReferences.sum(), compactReferences.sum());
+        }
+        return result;
+    }
+
+    /**
+     * Splits a range of methods until each task handles a single method.
+     */
+    private class RangeTask extends RecursiveAction {
+
+        private final List<JMethod> methods;
+
+        private final long[] times;
+
+        private final int from;
+
+        private final int to;
+
+        private RangeTask(List<JMethod> methods, long[] times, int from, int to) {
+            this.methods = methods;
+            this.times = times;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                times[from] = analyze(from, methods.get(from));
+            } else if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(methods, times, from, mid),
+                        new RangeTask(methods, times, mid, to));
+            }
+        }
+    }
+
+    /**
+     * @return time spent on the stages of given method, excluding the
+     * nested work of other methods.
+     */
+    private long analyze(int index, JMethod method) {
+        IR ir = method.getIR();
+        Progress progress = analyzing.get();
+        if (reporter != null && progress.depth == 0) {
+            // a thread analyzing another method (e.g., while helping to
+            // join a task) must not wait, as it may hold the awaited one
+            reporter.await(index);
+        }
+        long enter = System.nanoTime();
+        IR outerIR = progress.ir;
+        long outerNested = progress.nested;
+        progress.ir = ir;
+        progress.nested = 0;
+        ++progress.depth;
+        long time;
+        try {
+            boolean analyzed = false;
+            try {
+                long start = System.nanoTime();
+                runStages(ir);
+                time = System.nanoTime() - start - progress.nested;
+                analyzed = true;
+            } finally {
+                if (reporter != null && !analyzed) {
+                    // keeps the following methods from being held back, and
+                    // stops waiting for them, as pending tasks may be cancelled
+                    reporter.skip(index);
+                    reporter.release();
+                }
+            }
+            if (reporter != null) {
+                reporter.report(index, method);
+            }
+            if (compact) {
+                compactResults(ir);
+            }
+        } finally {
+            --progress.depth;
+            progress.ir = outerIR;
+            // the enclosing method, if any, excludes all time spent here
+            progress.nested = outerNested + (System.nanoTime() - enter);
+        }
+        return time;
+    }
+
+    private void runStages(IR ir) {
+        for (List<MethodAnalysis> stage : stages) {
+            if (stage.size() == 1) {
+                MethodAnalysis analysis = stage.get(0);
+                ir.storeResult(analysis.getId(), analysis.analyze(ir));
+            } else {
+                List<AnalysisTask> tasks = new ArrayList<>(stage.size());
+                for (MethodAnalysis analysis : stage) {
+                    tasks.add(new AnalysisTask(analysis, ir));
+                }
+                RecursiveTask.invokeAll(tasks);
+                // results are stored after joining, as IR is not thread-safe
+                for (AnalysisTask task : tasks) {
+                    ir.storeResult(task.analysis.getId(), task.join());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the data-flow results stored in given IR by compact ones.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void compactResults(IR ir) {
+        CFG cfg = ir.getResult(CFGBuilder.ID);
+        for (List<MethodAnalysis> stage : stages) {
+            for (MethodAnalysis analysis : stage) {
+                if (ir.getResult(analysis.getId()) instanceof DataflowResult result &&
+                        !(result instanceof CompactDataflowResult)) {
+                    DataflowResult compacted = CompactDataflowResult.compact(cfg, result);
+                    if (compacted instanceof CompactDataflowResult c) {
+                        originalReferences.add(c.getOriginalReferences());
+                        compactReferences.add(c.getCompactReferences());
+                        ir.storeResult(analysis.getId(), compacted);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * State of the methods being analyzed on the stack of a thread.
+     */
+    private static class Progress {
+
+        /**
+         * Number of methods being analyzed.
+         */
+        private int depth;
+
+        /**
+         * IR of the innermost method being analyzed, or null.
+         */
+        private IR ir;
+
+        /**
+         * Time spent on other methods within the innermost method.
+         */
+        private long nested;
+    }
+
+    private class AnalysisTask extends RecursiveTask<Object> {
+
+        private final MethodAnalysis analysis;
+
+        private final IR ir;
+
+        private AnalysisTask(MethodAnalysis analysis, IR ir) {
+            this.analysis = analysis;
+            this.ir = ir;
+        }
+
+        @Override
+        protected Object compute() {
+            Progress progress = analyzing.get();
+            if (progress.ir == ir || progress.depth == 0) {
+                return analysis.analyze(ir);
+            }
+            // a task of another method, stolen while joining
+            long start = System.nanoTime();
+            try {
+                return analysis.analyze(ir);
+            } finally {
+                progress.nested += System.nanoTime() - start;
+            }
+        }
+    }
+}
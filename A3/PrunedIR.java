@@ -0,0 +1,141 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * View of the IR and CFG of a method without the code proven dead by
+ * dead code detection, which is stored in the IR by {@code DeadCodePruning}
+ * under {@link #ID}. It only depends on the IR and CFG, so the analyses
+ * which skip dead code can read the view without depending on the
+ * analyses which build it.
+ * <p>
+ * A statement is reachable if it may be executed, i.e., it can be reached
+ * from the entry without taking an infeasible branch, and it is live if it
+ * is reachable and is not a dead assignment. The view lists the live
+ * statements, and tells whether a statement is reachable and whether a
+ * CFG edge is feasible.
+ */
+public class PrunedIR {
+
+    public static final String ID = "deadcode-pruning";
+
+    private final IR ir;
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Feasible CFG successors of each reachable statement.
+     */
+    private final Map<Stmt, Set<Stmt>> feasibleSuccs;
+
+    private final Set<Stmt> live;
+
+    private final List<Stmt> stmts;
+
+    PrunedIR(CFG<Stmt> cfg, Map<Stmt, Set<Stmt>> feasibleSuccs, Set<Stmt> deadCode) {
+        this.ir = cfg.getIR();
+        this.cfg = cfg;
+        this.feasibleSuccs = feasibleSuccs;
+        live = new HashSet<>();
+        for (Stmt stmt : feasibleSuccs.keySet()) {
+            if (!deadCode.contains(stmt)) {
+                live.add(stmt);
+            }
+        }
+        stmts = ir.getStmts()
+                .stream()
+                .filter(live::contains)
+                .toList();
+    }
+
+    /**
+     * @return the pruned view of given IR if it has been pruned,
+     * otherwise null.
+     */
+    public static PrunedIR of(IR ir) {
+        return ir.hasResult(ID) ? ir.getResult(ID) : null;
+    }
+
+    /**
+     * @return the live statements of given IR if it has been pruned,
+     * otherwise all its statements.
+     */
+    public static List<Stmt> getStmtsOf(IR ir) {
+        PrunedIR pruned = of(ir);
+        return pruned != null ? pruned.getStmts() : ir.getStmts();
+    }
+
+    public IR getIR() {
+        return ir;
+    }
+
+    public Stmt getEntry() {
+        return cfg.getEntry();
+    }
+
+    public Stmt getExit() {
+        return cfg.getExit();
+    }
+
+    /**
+     * @return the live statements of the IR, in index order.
+     */
+    public List<Stmt> getStmts() {
+        return stmts;
+    }
+
+    public boolean isReachable(Stmt stmt) {
+        return feasibleSuccs.containsKey(stmt);
+    }
+
+    public boolean isLive(Stmt stmt) {
+        return live.contains(stmt);
+    }
+
+    /**
+     * @return true if the CFG edge from source to target may be taken.
+     */
+    public boolean isFeasible(Stmt source, Stmt target) {
+        return getFeasibleSuccsOf(source).contains(target);
+    }
+
+    /**
+     * @return the number of statements removed from the IR.
+     */
+    public int getNumberOfPrunedStmts() {
+        return ir.getStmts().size() - stmts.size();
+    }
+
+    private Set<Stmt> getFeasibleSuccsOf(Stmt stmt) {
+        return feasibleSuccs.getOrDefault(stmt, Set.of());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reachability engine over the statements of a CFG. Statements are
+ * identified by their slots (the entry is 0, the exit is 1, and other
+ * statements are their indexes plus 2), visited statements are tracked
+ * in a bit set, and the pending statements are kept in an int-array
+ * queue. Every statement is enqueued at most once, so a traversal takes
+ * linear time.
+ */
+class StmtReachability {
+
+    private final CFG<Stmt> cfg;
+
+    private final List<Stmt> stmts;
+
+    private final BitSet visited;
+
+    /**
+     * Statements marked by the traversal, e.g., the live ones.
+     */
+    private final BitSet marked;
+
+    private final int[] queue;
+
+    private int head;
+
+    private int tail;
+
+    StmtReachability(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        this.stmts = cfg.getIR().getStmts();
+        int size = stmts.size() + 2;
+        this.visited = new BitSet(size);
+        this.marked = new BitSet(size);
+        this.queue = new int[size];
+    }
+
+    /**
+     * Enqueues given statement if it has not been visited.
+     */
+    void add(Stmt stmt) {
+        int slot = slotOf(stmt);
+        if (!visited.get(slot)) {
+            visited.set(slot);
+            queue[tail++] = slot;
+        }
+    }
+
+    void addAll(Collection<Stmt> stmts) {
+        stmts.forEach(this::add);
+    }
+
+    boolean hasNext() {
+        return head < tail;
+    }
+
+    Stmt next() {
+        return stmtOf(queue[head++]);
+    }
+
+    void mark(Stmt stmt) {
+        marked.set(slotOf(stmt));
+    }
+
+    /**
+     * @return the statements of the IR (excluding the entry and the exit)
+     * which are not marked, sorted by index.
+     */
+    Set<Stmt> getUnmarked() {
+        Set<Stmt> unmarked = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        for (int slot = marked.nextClearBit(2); slot < stmts.size() + 2;
+             slot = marked.nextClearBit(slot + 1)) {
+            unmarked.add(stmts.get(slot - 2));
+        }
+        return unmarked;
+    }
+
+    private int slotOf(Stmt stmt) {
+        return stmt == cfg.getEntry() ? 0 :
+                stmt == cfg.getExit() ? 1 : stmt.getIndex() + 2;
+    }
+
+    private Stmt stmtOf(int slot) {
+        return slot == 0 ? cfg.getEntry() :
+                slot == 1 ? cfg.getExit() : stmts.get(slot - 2);
+    }
+}
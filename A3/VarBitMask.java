@@ -0,0 +1,93 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.ir.exp.Var;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of variables of one method, which keeps only the non-zero
+ * words of the bit vector used by {@link VarBitSetFact}. It is meant for
+ * the gen and kill sets of bit-vector analyses, which usually contain
+ * a few variables, so applying them touches a few words only.
+ */
+public final class VarBitMask {
+
+    public static final VarBitMask EMPTY = new VarBitMask(null, new int[0], new long[0]);
+
+    /**
+     * Variables of the containing method, or null if this mask is empty.
+     */
+    final List<Var> vars;
+
+    /**
+     * Indexes of the non-zero words, in ascending order.
+     */
+    final int[] indexes;
+
+    final long[] words;
+
+    private VarBitMask(List<Var> vars, int[] indexes, long[] words) {
+        this.vars = vars;
+        this.indexes = indexes;
+        this.words = words;
+    }
+
+    /**
+     * @return the mask of given variables, which must belong to the same method.
+     */
+    public static VarBitMask of(Collection<Var> vars) {
+        if (vars.isEmpty()) {
+            return EMPTY;
+        }
+        TreeMap<Integer, Long> words = new TreeMap<>();
+        for (Var var : vars) {
+            words.merge(VarBitSetFact.wordIndex(var.getIndex()), 1L << var.getIndex(), (w1, w2) -> w1 | w2);
+        }
+        int[] indexes = new int[words.size()];
+        long[] bits = new long[words.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Long> e : words.entrySet()) {
+            indexes[i] = e.getKey();
+            bits[i] = e.getValue();
+            ++i;
+        }
+        Var first = vars.iterator().next();
+        return new VarBitMask(first.getMethod().getIR().getVars(), indexes, bits);
+    }
+
+    public boolean isEmpty() {
+        return indexes.length == 0;
+    }
+
+    /**
+     * @return the number of words needed to hold this mask.
+     */
+    int length() {
+        return indexes.length == 0 ? 0 : indexes[indexes.length - 1] + 1;
+    }
+}
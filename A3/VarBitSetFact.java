@@ -0,0 +1,381 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link SetFact} of variables backed by a dense bit vector.
+ * Bit i represents the variable whose {@link Var#getIndex()} is i,
+ * so all variables in one fact must belong to the same method.
+ * Set operations between two bit-vector facts work on whole words
+ * through {@link BitKernels}, which may use the Vector API if enabled;
+ * mixing with plain {@link SetFact}s falls back to element-wise operations.
+ * <p>
+ * The elements live in the bit vector only and the inherited set stays
+ * empty, so every operation of {@link SetFact} is overridden here.
+ * Like {@link SetFact}, a fact is only equal to facts of its own class,
+ * hence the facts of one analysis should not mix the two representations.
+ */
+public class VarBitSetFact extends SetFact<Var> {
+
+    private static final int ADDRESS_BITS = 6;
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final BitKernels KERNELS = BitKernels.INSTANCE;
+
+    /**
+     * Variables of the containing method, used to map bits back to
+     * {@link Var}s. It is bound lazily by the first variable added.
+     */
+    private List<Var> vars;
+
+    private long[] words;
+
+    public VarBitSetFact() {
+        this.words = EMPTY;
+    }
+
+    private VarBitSetFact(List<Var> vars, long[] words) {
+        this.vars = vars;
+        this.words = words;
+    }
+
+    static int wordIndex(int bitIndex) {
+        return bitIndex >>> ADDRESS_BITS;
+    }
+
+    private void bind(Var var) {
+        if (vars == null) {
+            vars = var.getMethod().getIR().getVars();
+        }
+    }
+
+    private void ensureCapacity(int nWords) {
+        if (words.length < nWords) {
+            words = Arrays.copyOf(words, Math.max(nWords, words.length * 2));
+        }
+    }
+
+    @Override
+    public boolean contains(Var var) {
+        int i = var.getIndex();
+        int w = wordIndex(i);
+        return w < words.length && (words[w] & (1L << i)) != 0;
+    }
+
+    @Override
+    public boolean add(Var var) {
+        bind(var);
+        int i = var.getIndex();
+        int w = wordIndex(i);
+        ensureCapacity(w + 1);
+        long old = words[w];
+        words[w] = old | (1L << i);
+        return words[w] != old;
+    }
+
+    @Override
+    public boolean remove(Var var) {
+        int i = var.getIndex();
+        int w = wordIndex(i);
+        if (w >= words.length) {
+            return false;
+        }
+        long old = words[w];
+        words[w] = old & ~(1L << i);
+        return words[w] != old;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<Var> filter) {
+        boolean changed = false;
+        for (Var var : this) {
+            if (filter.test(var)) {
+                changed |= remove(var);
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<Var> other) {
+        if (other instanceof VarBitSetFact that) {
+            if (vars == null) {
+                vars = that.vars;
+            }
+            ensureCapacity(that.words.length);
+            return KERNELS.or(that.words, words, 0, that.words.length);
+        }
+        boolean changed = false;
+        for (Var var : other) {
+            changed |= add(var);
+        }
+        return changed;
+    }
+
+    @Override
+    public SetFact<Var> unionWith(SetFact<Var> other) {
+        SetFact<Var> result = copy();
+        result.union(other);
+        return result;
+    }
+
+    @Override
+    public boolean intersect(SetFact<Var> other) {
+        if (other instanceof VarBitSetFact that) {
+            int n = Math.min(words.length, that.words.length);
+            boolean changed = KERNELS.and(that.words, words, 0, n);
+            return clearRange(n, words.length) | changed;
+        }
+        return removeIf(var -> !other.contains(var));
+    }
+
+    @Override
+    public SetFact<Var> intersectWith(SetFact<Var> other) {
+        SetFact<Var> result = copy();
+        result.intersect(other);
+        return result;
+    }
+
+    /**
+     * Removes all elements of other from this fact.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean removeAll(SetFact<Var> other) {
+        if (other instanceof VarBitSetFact that) {
+            int n = Math.min(words.length, that.words.length);
+            return KERNELS.andNot(that.words, words, 0, n);
+        }
+        boolean changed = false;
+        for (Var var : other) {
+            changed |= remove(var);
+        }
+        return changed;
+    }
+
+    @Override
+    public void set(SetFact<Var> other) {
+        clear();
+        union(other);
+    }
+
+    /**
+     * Sets this fact to gen U (base - kill), i.e., the transfer function
+     * of a gen/kill analysis, in one pass over the words.
+     *
+     * @param base the fact to start from; it is not modified
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean transfer(VarBitSetFact base, VarBitMask gen, VarBitMask kill) {
+        if (vars == null) {
+            vars = base.vars != null ? base.vars : gen.vars;
+        }
+        int nWords = Math.max(base.words.length, gen.length());
+        ensureCapacity(nWords);
+        boolean changed = false;
+        // copy the words between masked ones in bulk
+        int from = 0, g = 0, k = 0;
+        while (true) {
+            int next = Math.min(
+                    g < gen.indexes.length ? gen.indexes[g] : Integer.MAX_VALUE,
+                    k < kill.indexes.length ? kill.indexes[k] : Integer.MAX_VALUE);
+            changed |= copyRange(base.words, from, Math.min(next, nWords));
+            if (next >= nWords) {
+                break;
+            }
+            long word = next < base.words.length ? base.words[next] : 0L;
+            if (k < kill.indexes.length && kill.indexes[k] == next) {
+                word &= ~kill.words[k++];
+            }
+            if (g < gen.indexes.length && gen.indexes[g] == next) {
+                word |= gen.words[g++];
+            }
+            changed |= words[next] != word;
+            words[next] = word;
+            from = next + 1;
+        }
+        return clearRange(nWords, words.length) | changed;
+    }
+
+    /**
+     * Copies words [from, to) of src into this fact, where the words
+     * beyond src are taken as 0.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    private boolean copyRange(long[] src, int from, int to) {
+        int mid = Math.min(to, src.length);
+        boolean changed = from < mid && KERNELS.copy(src, words, from, mid);
+        return clearRange(Math.max(from, mid), to) | changed;
+    }
+
+    /**
+     * Clears words [from, to) of this fact.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    private boolean clearRange(int from, int to) {
+        boolean changed = false;
+        for (int w = from; w < to; ++w) {
+            if (words[w] != 0L) {
+                words[w] = 0L;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public VarBitSetFact copy() {
+        return new VarBitSetFact(vars, words.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<Var> iterator() {
+        return new Iterator<>() {
+
+            private int next = nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Var next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                Var var = vars.get(next);
+                next = nextSetBit(next + 1);
+                return var;
+            }
+        };
+    }
+
+    private int nextSetBit(int from) {
+        int w = wordIndex(from);
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0L) {
+                return (w << ADDRESS_BITS) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Var> action) {
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            action.accept(vars.get(i));
+        }
+    }
+
+    @Override
+    public Stream<Var> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof VarBitSetFact that)) {
+            return false;
+        }
+        int n = Math.min(words.length, that.words.length);
+        if (!KERNELS.equals(words, that.words, 0, n)) {
+            return false;
+        }
+        long[] longer = words.length > n ? words : that.words;
+        for (int w = n; w < longer.length; ++w) {
+            if (longer[w] != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // trailing zero words must not affect the hash, as in equals()
+        int hash = 0;
+        for (int w = 0; w < words.length; ++w) {
+            if (words[w] != 0L) {
+                hash = 31 * hash + (w ^ Long.hashCode(words[w]));
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        List<Var> elems = new ArrayList<>(size());
+        forEach(elems::add);
+        return elems.toString();
+    }
+}
@@ -23,6 +23,7 @@
 package pascal.taie.analysis.graph.callgraph;
 
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
@@ -61,7 +62,8 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
             // add m to RM
             callGraph.addReachableMethod(m);
             // foreach call site cs in m do
-            for(Stmt stmt : m.getIR().getStmts()){
+            // (call sites in code proven dead are skipped if m was pruned)
+            for(Stmt stmt : PrunedIR.getStmtsOf(m.getIR())){
                 if(stmt instanceof Invoke cs){
                     // T = Resolve(cs)
                     // foreach target method m1 in T do
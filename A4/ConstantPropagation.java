@@ -0,0 +1,356 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.IdentityTransfer;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.*;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+
+import java.util.Set;
+
+public class ConstantPropagation extends
+        AbstractDataflowAnalysis<Stmt, CPFact> implements IdentityTransfer<Stmt> {
+
+    public static final String ID = "constprop";
+
+    private final AnalysisConfig config;
+
+    /**
+     * The method whose evaluators are compiled, or null for the instance
+     * shared by all methods, see {@link #forMethod(IR)}.
+     */
+    private final IR ir;
+
+    /**
+     * Compiled evaluators of the right-hand sides of the definition
+     * statements of {@link #ir}, indexed by {@link Stmt#getIndex()}.
+     */
+    private final Evaluator[] evaluators;
+
+    public ConstantPropagation(AnalysisConfig config) {
+        super(config);
+        this.config = config;
+        this.ir = null;
+        this.evaluators = null;
+    }
+
+    private ConstantPropagation(AnalysisConfig config, IR ir) {
+        super(config);
+        this.config = config;
+        this.ir = ir;
+        this.evaluators = new Evaluator[ir.getStmts().size()];
+        CFG<Stmt> cfg = ir.hasResult(CFGBuilder.ID) ? ir.getResult(CFGBuilder.ID) : null;
+        for (Stmt stmt : ir) {
+            if (stmt instanceof DefinitionStmt<?, ?> def &&
+                    def.getLValue() instanceof Var x && canHoldInt(x)) {
+                evaluators[stmt.getIndex()] = Evaluators.compile(def.getRValue(),
+                        var -> getLiteralOperand(cfg, stmt, var));
+            }
+        }
+    }
+
+    /**
+     * @return the value of given variable at given statement, if the only
+     * predecessor of the statement assigns an int literal to the variable
+     * (which is how the IR loads constant operands into temporary
+     * variables), otherwise null.
+     */
+    private static Value getLiteralOperand(CFG<Stmt> cfg, Stmt stmt, Var var) {
+        if (cfg == null) {
+            return null;
+        }
+        Set<Stmt> preds = cfg.getPredsOf(stmt);
+        if (preds.size() == 1 &&
+                preds.iterator().next() instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() == var && canHoldInt(var) &&
+                def.getRValue() instanceof IntLiteral literal) {
+            return Values.makeConstant(literal.getValue());
+        }
+        return null;
+    }
+
+    /**
+     * @return an instance of this analysis which compiles the evaluators
+     * of given method once. The evaluators are released together with
+     * the instance, e.g., after the method is solved.
+     */
+    public ConstantPropagation forMethod(IR ir) {
+        return this.ir == ir ? this : new ConstantPropagation(config, ir);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        return this.ir == ir ? super.analyze(ir) : forMethod(ir).analyze(ir);
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    @Override
+    public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+        // TODO - check
+        CPFact fact = new PackedCPFact();
+        cfg.getIR().getParams().forEach(var -> {
+            if(canHoldInt(var)) {
+                fact.update(var, Value.getNAC());
+            }
+        });
+        return fact;
+    }
+
+    @Override
+    public CPFact newInitialFact() {
+        // TODO - check
+        return new PackedCPFact();
+    }
+
+    @Override
+    public void meetInto(CPFact fact, CPFact target) {
+        // TODO - check
+        if (fact instanceof PackedCPFact packedFact &&
+                target instanceof PackedCPFact packedTarget) {
+            packedTarget.meetFrom(packedFact);
+            return;
+        }
+        fact.forEach(((k, v) -> {
+            target.update(k, meetValue(target.get(k),v));
+        }));
+    }
+
+    /**
+     * Meets two Values.
+     */
+    public Value meetValue(Value v1, Value v2) {
+        // TODO - check
+        // NAC 交 v = NAC
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        }
+
+        if (v1.isConstant() && v2.isConstant()) {
+            if (v1.getConstant() == v2.getConstant()) {
+                // c 交 c = c
+                return v1;
+            } else {
+                // c1 交 c2 = NAC
+                return Value.getNAC();
+            }
+        }
+
+        // UNDEF 交 v = v
+        return v1.isUndef() ? v2 : v1;
+    }
+
+    @Override
+    public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+        // TODO - check
+        // 使用 canHoldInt 来过滤 stmt 中的 Var
+        if (in instanceof PackedCPFact packedIn &&
+                out instanceof PackedCPFact packedOut) {
+            return transferPacked(stmt, packedIn, packedOut);
+        }
+        // 是否改变
+        boolean change = false;
+
+        for(Var key : in.keySet()){
+            change |= out.update(key, in.get(key));
+        }
+
+        if(stmt instanceof DefinitionStmt<?, ?> def){
+            LValue left = def.getLValue();
+            if(left instanceof Var x){
+                if(canHoldInt(x)){
+                    Value res = getEvaluator(def).evaluate(in);
+                    change |= out.update(x, res);
+                }
+            }
+        }
+        return change;
+    }
+
+    /**
+     * Statements which define no int variable do not change the facts.
+     */
+    @Override
+    public boolean isIdentity(Stmt stmt) {
+        return !(stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var x && canHoldInt(x));
+    }
+
+    /**
+     * Packed version of {@link #transferNode}: IN is copied into OUT with
+     * the defined variable (if any) updated, in one pass over the slots.
+     */
+    private boolean transferPacked(Stmt stmt, PackedCPFact in, PackedCPFact out) {
+        if (stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var x && canHoldInt(x)) {
+            Value res = getEvaluator(def).evaluate(in);
+            return out.assign(in, x, PackedCPFact.encode(res));
+        }
+        return out.assign(in, null, PackedCPFact.UNDEF);
+    }
+
+    /**
+     * @return the evaluator of the right-hand side of given statement.
+     * It is looked up by statement index if the statement belongs to
+     * the method of this instance, otherwise it is compiled anew.
+     */
+    public Evaluator getEvaluator(DefinitionStmt<?, ?> stmt) {
+        int i = stmt.getIndex();
+        if (evaluators != null && i >= 0 && i < evaluators.length &&
+                evaluators[i] != null && ir.getStmt(i) == stmt) {
+            return evaluators[i];
+        }
+        return Evaluators.compile(stmt.getRValue());
+    }
+
+    /**
+     * @return true if the given variable can hold integer value, otherwise false.
+     */
+    public static boolean canHoldInt(Var var) {
+        Type type = var.getType();
+        if (type instanceof PrimitiveType) {
+            switch ((PrimitiveType) type) {
+                case BYTE:
+                case SHORT:
+                case INT:
+                case CHAR:
+                case BOOLEAN:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the {@link Value} of given expression.
+     *
+     * @param exp the expression to be evaluated
+     * @param in  IN fact of the statement
+     * @return the resulting {@link Value}
+     */
+    public static Value evaluate(Exp exp, CPFact in) {
+        // TODO - check
+        if (exp instanceof Var var) {
+            return in.get(var);
+        }
+
+        if (exp instanceof IntLiteral intLiteral) {
+            return Values.makeConstant(intLiteral.getValue());
+        }
+
+        if (exp instanceof BinaryExp binaryExp) {
+//            Value v1 = in.get(binaryExp.getOperand1());
+//            Value v2 = in.get(binaryExp.getOperand2());
+            Value v1 = evaluate(binaryExp.getOperand1(), in);
+            Value v2 = evaluate(binaryExp.getOperand2(), in);
+            BinaryExp.Op op = binaryExp.getOperator();
+
+            // 被除数为0
+            if (v2.isConstant() && v2.getConstant()==0) {
+                if (op instanceof ArithmeticExp.Op arithmeticOp) {
+                    if (arithmeticOp == ArithmeticExp.Op.DIV || arithmeticOp == ArithmeticExp.Op.REM) {
+                        return Value.getUndef();
+                    }
+                }
+            }
+
+            if (v1.isNAC() || v2.isNAC()) {
+                return Value.getNAC();
+            }
+
+            if (v1.isUndef() || v2.isUndef()) {
+                return Value.getUndef();
+            }
+
+            if (v1.isConstant() && v2.isConstant()) {
+                int int1 = v1.getConstant();
+                int int2 = v2.getConstant();
+                if (op instanceof ArithmeticExp.Op arithmeticOp) {
+                    switch (arithmeticOp) {
+                        case ADD:
+                            return Values.makeConstant(int1 + int2);
+                        case SUB:
+                            return Values.makeConstant(int1 - int2);
+                        case MUL:
+                            return Values.makeConstant(int1 * int2);
+                        case DIV:
+                            return Values.makeConstant(int1 / int2);
+                        case REM:
+                            return Values.makeConstant(int1 % int2);
+                    }
+                }
+                if (op instanceof ShiftExp.Op shiftOp) {
+                    switch (shiftOp) {
+                        case SHL:
+                            return Values.makeConstant(int1 << int2);
+                        case SHR:
+                            return Values.makeConstant(int1 >> int2);
+                        case USHR:
+                            return Values.makeConstant(int1 >>> int2);
+                    }
+                }
+                if (op instanceof BitwiseExp.Op bitwiseOp) {
+                    switch (bitwiseOp) {
+                        case OR:
+                            return Values.makeConstant(int1 | int2);
+                        case AND:
+                            return Values.makeConstant(int1 & int2);
+                        case XOR:
+                            return Values.makeConstant(int1 ^ int2);
+                    }
+                }
+                if (op instanceof ConditionExp.Op conditionOp) {
+                    switch (conditionOp) {
+                        case EQ:
+                            return Values.makeConstant(int1 == int2 ? 1:0);
+                        case NE:
+                            return Values.makeConstant(int1 != int2 ? 1:0);
+                        case GE:
+                            return Values.makeConstant(int1 >= int2 ? 1:0);
+                        case GT:
+                            return Values.makeConstant(int1 > int2 ? 1:0);
+                        case LE:
+                            return Values.makeConstant(int1 <= int2 ? 1:0);
+                        case LT:
+                            return Values.makeConstant(int1 < int2 ? 1:0);
+                    }
+                }
+            }
+        }
+
+        return Value.getNAC();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.ir.exp.Var;
+
+import java.util.function.Function;
+
+/**
+ * Compiles expressions to {@link Evaluator}s, which compute the same
+ * values as {@link ConstantPropagation#evaluate(Exp, CPFact)}.
+ * <p>
+ * Binary expressions are compiled by the shape of their operands, i.e.,
+ * two variables, or a variable and a constant, and the operator is
+ * selected by a switch over its code in the evaluator, so the evaluation
+ * does not go through an operator object per expression.
+ */
+public final class Evaluators {
+
+    private static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, REM = 4,
+            SHL = 5, SHR = 6, USHR = 7, OR = 8, AND = 9, XOR = 10,
+            EQ = 11, NE = 12, GE = 13, GT = 14, LE = 15, LT = 16;
+
+    private Evaluators() {
+    }
+
+    /**
+     * @return an evaluator specialized for given expression. Expressions
+     * which are not specialized are interpreted by
+     * {@link ConstantPropagation#evaluate(Exp, CPFact)}.
+     */
+    public static Evaluator compile(Exp exp) {
+        return compile(exp, var -> null);
+    }
+
+    /**
+     * @param constants returns the constant value of a variable wherever
+     *                  the expression is evaluated, or null if unknown
+     * @return an evaluator specialized for given expression, in which the
+     * operands with constant values are folded.
+     */
+    public static Evaluator compile(Exp exp, Function<Var, Value> constants) {
+        if (exp instanceof Var var) {
+            return new VarEvaluator(var);
+        }
+        if (exp instanceof IntLiteral intLiteral) {
+            return new ConstantEvaluator(Values.makeConstant(intLiteral.getValue()));
+        }
+        if (exp instanceof BinaryExp binaryExp) {
+            int op = getOpcode(binaryExp.getOperator());
+            if (op >= 0) {
+                Var operand1 = binaryExp.getOperand1();
+                Var operand2 = binaryExp.getOperand2();
+                Value c1 = constants.apply(operand1);
+                Value c2 = constants.apply(operand2);
+                if (c2 != null && isDivision(op) && c2.getConstant() == 0) {
+                    return new ConstantEvaluator(Value.getUndef());
+                }
+                if (c1 != null && c2 != null) {
+                    return new ConstantEvaluator(Values.makeConstant(
+                            apply(op, c1.getConstant(), c2.getConstant())));
+                }
+                if (c2 != null) {
+                    return new VarConstEvaluator(operand1, c2.getConstant(), op);
+                }
+                if (c1 != null) {
+                    return new ConstVarEvaluator(c1.getConstant(), operand2, op);
+                }
+                return new BinaryEvaluator(operand1, operand2, op);
+            }
+        }
+        return in -> ConstantPropagation.evaluate(exp, in);
+    }
+
+    /**
+     * @return the code of given operator, or -1 if it is not compiled.
+     */
+    private static int getOpcode(BinaryExp.Op op) {
+        if (op instanceof ArithmeticExp.Op arithmeticOp) {
+            return switch (arithmeticOp) {
+                case ADD -> ADD;
+                case SUB -> SUB;
+                case MUL -> MUL;
+                case DIV -> DIV;
+                case REM -> REM;
+            };
+        }
+        if (op instanceof ShiftExp.Op shiftOp) {
+            return switch (shiftOp) {
+                case SHL -> SHL;
+                case SHR -> SHR;
+                case USHR -> USHR;
+            };
+        }
+        if (op instanceof BitwiseExp.Op bitwiseOp) {
+            return switch (bitwiseOp) {
+                case OR -> OR;
+                case AND -> AND;
+                case XOR -> XOR;
+            };
+        }
+        if (op instanceof ConditionExp.Op conditionOp) {
+            return switch (conditionOp) {
+                case EQ -> EQ;
+                case NE -> NE;
+                case GE -> GE;
+                case GT -> GT;
+                case LE -> LE;
+                case LT -> LT;
+            };
+        }
+        return -1;
+    }
+
+    private static boolean isDivision(int op) {
+        return op == DIV || op == REM;
+    }
+
+    private static int apply(int op, int x, int y) {
+        return switch (op) {
+            case ADD -> x + y;
+            case SUB -> x - y;
+            case MUL -> x * y;
+            case DIV -> x / y;
+            case REM -> x % y;
+            case SHL -> x << y;
+            case SHR -> x >> y;
+            case USHR -> x >>> y;
+            case OR -> x | y;
+            case AND -> x & y;
+            case XOR -> x ^ y;
+            case EQ -> x == y ? 1 : 0;
+            case NE -> x != y ? 1 : 0;
+            case GE -> x >= y ? 1 : 0;
+            case GT -> x > y ? 1 : 0;
+            case LE -> x <= y ? 1 : 0;
+            case LT -> x < y ? 1 : 0;
+            default -> throw new IllegalArgumentException("Unknown opcode: " + op);
+        };
+    }
+
+    private record VarEvaluator(Var var) implements Evaluator {
+
+        @Override
+        public Value evaluate(CPFact in) {
+            return in.get(var);
+        }
+    }
+
+    private record ConstantEvaluator(Value value) implements Evaluator {
+
+        @Override
+        public Value evaluate(CPFact in) {
+            return value;
+        }
+    }
+
+    private record BinaryEvaluator(Var operand1, Var operand2, int op)
+            implements Evaluator {
+
+        @Override
+        public Value evaluate(CPFact in) {
+            Value v1 = in.get(operand1);
+            Value v2 = in.get(operand2);
+            if (isDivision(op) && v2.isConstant() && v2.getConstant() == 0) {
+                return Value.getUndef();
+            }
+            if (v1.isNAC() || v2.isNAC()) {
+                return Value.getNAC();
+            }
+            if (v1.isConstant() && v2.isConstant()) {
+                return Values.makeConstant(
+                        apply(op, v1.getConstant(), v2.getConstant()));
+            }
+            return Value.getUndef();
+        }
+    }
+
+    /**
+     * Evaluator of a binary expression whose second operand is constant,
+     * which is not a zero divisor.
+     */
+    private record VarConstEvaluator(Var operand1, int constant2, int op)
+            implements Evaluator {
+
+        @Override
+        public Value evaluate(CPFact in) {
+            Value v1 = in.get(operand1);
+            if (v1.isNAC()) {
+                return Value.getNAC();
+            }
+            if (v1.isConstant()) {
+                return Values.makeConstant(apply(op, v1.getConstant(), constant2));
+            }
+            return Value.getUndef();
+        }
+    }
+
+    /**
+     * Evaluator of a binary expression whose first operand is constant.
+     */
+    private record ConstVarEvaluator(int constant1, Var operand2, int op)
+            implements Evaluator {
+
+        @Override
+        public Value evaluate(CPFact in) {
+            Value v2 = in.get(operand2);
+            if (isDivision(op) && v2.isConstant() && v2.getConstant() == 0) {
+                return Value.getUndef();
+            }
+            if (v2.isNAC()) {
+                return Value.getNAC();
+            }
+            if (v2.isConstant()) {
+                return Values.makeConstant(apply(op, constant1, v2.getConstant()));
+            }
+            return Value.getUndef();
+        }
+    }
+}
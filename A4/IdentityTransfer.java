@@ -0,0 +1,40 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+/**
+ * Data-flow analysis whose transfer functions are identity on some nodes,
+ * e.g., the nodes which neither use nor define any variable of interest.
+ * Solvers skip the transfer of such nodes, and let their IN and OUT
+ * share one fact instance, which is replaced instead of modified when
+ * the fact changes.
+ *
+ * @param <Node> type of CFG nodes
+ */
+public interface IdentityTransfer<Node> {
+
+    /**
+     * @return true if the transfer function of given node is identity.
+     */
+    boolean isIdentity(Node node);
+}
@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.PersistentCPFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -35,16 +36,22 @@ import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.LValue;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.canHoldInt;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
+ * Facts are {@link PersistentCPFact}s, so that the copies made on each
+ * visit of the ICFG nodes and edges share structure instead of
+ * duplicating whole maps.
  */
 public class InterConstantPropagation extends
         AbstractInterDataflowAnalysis<JMethod, Stmt, CPFact> {
@@ -53,6 +60,12 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
+    /**
+     * Instances of {@link ConstantPropagation} for each method, which
+     * hold the compiled evaluators of the method.
+     */
+    private final Map<JMethod, ConstantPropagation> methodCPs = new HashMap<>();
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
@@ -66,22 +79,34 @@ public class InterConstantPropagation extends
     @Override
     public CPFact newBoundaryFact(Stmt boundary) {
         IR ir = icfg.getContainingMethodOf(boundary).getIR();
-        return cp.newBoundaryFact(ir.getResult(CFGBuilder.ID));
+        CPFact fact = new PersistentCPFact();
+        fact.copyFrom(cp.newBoundaryFact(ir.getResult(CFGBuilder.ID)));
+        return fact;
     }
 
     @Override
     public CPFact newInitialFact() {
-        return cp.newInitialFact();
+        return new PersistentCPFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
+        if (fact instanceof PersistentCPFact persistentFact &&
+                target instanceof PersistentCPFact persistentTarget) {
+            // meets the tries directly, skipping their shared sub-tries
+            persistentTarget.meetFrom(persistentFact);
+            return;
+        }
         cp.meetInto(fact, target);
     }
 
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - check
+        if (in instanceof PersistentCPFact persistentIn &&
+                out instanceof PersistentCPFact persistentOut) {
+            return persistentOut.putAll(persistentIn);
+        }
         boolean change = false;
 
         for(Var key : in.keySet()){
@@ -93,12 +118,24 @@ public class InterConstantPropagation extends
     @Override
     protected boolean transferNonCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - check
+        if (in instanceof PersistentCPFact persistentIn &&
+                out instanceof PersistentCPFact persistentOut) {
+            boolean change = persistentOut.putAll(persistentIn);
+            if (stmt instanceof DefinitionStmt<?, ?> def &&
+                    def.getLValue() instanceof Var x && canHoldInt(x)) {
+                ConstantPropagation methodCP = methodCPs.computeIfAbsent(
+                        x.getMethod(), m -> cp.forMethod(m.getIR()));
+                change |= persistentOut.update(x, methodCP.getEvaluator(def).evaluate(in));
+            }
+            return change;
+        }
         return cp.transferNode(stmt,in,out);
     }
 
     @Override
     protected CPFact transferNormalEdge(NormalEdge<Stmt> edge, CPFact out) {
         // TODO - check
+        // O(1) for persistent facts
         return out.copy();
     }
 
@@ -116,7 +153,7 @@ public class InterConstantPropagation extends
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
         // TODO - check
-        CPFact ret = new CPFact();
+        CPFact ret = new PersistentCPFact();
 
         List<Var> formal = edge.getCallee().getIR().getParams();
         List<Var> args = ((Invoke) edge.getSource()).getInvokeExp().getArgs();
@@ -134,7 +171,7 @@ public class InterConstantPropagation extends
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
         // TODO - check
-        CPFact ret = new CPFact();
+        CPFact ret = new PersistentCPFact();
         LValue L = edge.getCallSite().getDef().orElse(null);
 
         if(L instanceof Var def && canHoldInt(def)){
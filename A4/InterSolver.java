@@ -22,10 +22,14 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
-import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverStats;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.SetQueue;
 
 import java.util.HashSet;
@@ -45,20 +49,34 @@ class InterSolver<Method, Node, Fact> {
 
     private final ICFG<Method, Node> icfg;
 
+    private final SolverStats stats;
+
     private DataflowResult<Node, Fact> result;
 
     private Queue<Node> workList;
 
+    /**
+     * Nodes proven unreachable by dead code pruning (see {@link PrunedIR}),
+     * which are never visited. Edges leaving infeasible branches are
+     * skipped as well, but dead assignments are still visited, as the
+     * ICFG keeps all statements.
+     */
+    private final Set<Node> prunedNodes = new HashSet<>();
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.stats = SolverStats.of(analysis);
     }
 
     DataflowResult<Node, Fact> solve() {
+        long start = System.nanoTime();
         result = new DataflowResult<>();
         initialize();
         doSolve();
+        // the time of each method is recorded by doSolve()
+        stats.recordRun(null, System.nanoTime() - start);
         return result;
     }
 
@@ -69,7 +87,13 @@ class InterSolver<Method, Node, Fact> {
         // CG
         for(Node node : icfg){
             result.setOutFact(node, analysis.newInitialFact());
+            if(isUnreachable(node)){
+                prunedNodes.add(node);
+                // pruned nodes are never visited, so they keep the initial facts
+                result.setInFact(node, analysis.newInitialFact());
+            }
         }
+        workList.removeAll(prunedNodes);
         icfg.entryMethods().forEach(method -> {
             Node entry = icfg.getEntryOf(method);
             result.setOutFact(entry, analysis.newBoundaryFact(entry));
@@ -78,19 +102,94 @@ class InterSolver<Method, Node, Fact> {
 
     private void doSolve() {
         // TODO - check
-        Queue<Node> workList = new LinkedList<>(icfg.getNodes());
+        stats.recordWorkListSize(workList.size());
+        // the clock is only read when the work list moves to another
+        // method, as timing each node would cost more than its transfer
+        Method current = null;
+        long since = System.nanoTime();
         while(!workList.isEmpty()){
             Node node = workList.poll();
-            CPFact in = new CPFact();
-            CPFact out = (CPFact) result.getOutFact(node);
+            Method method = icfg.getContainingMethodOf(node);
+            if (method != current) {
+                since = recordMethodTime(current, since);
+                current = method;
+            }
+            stats.countIteration();
+            Fact in = analysis.newInitialFact();
+            Fact out = result.getOutFact(node);
             for(ICFGEdge<Node> edge : icfg.getInEdgesOf(node)){
-                analysis.meetInto(analysis.transferEdge(edge, result.getOutFact(edge.getSource())), (Fact) in);
+                if(!isFeasible(edge)){
+                    continue;
+                }
+                stats.countMeet();
+                analysis.meetInto(analysis.transferEdge(edge, result.getOutFact(edge.getSource())), in);
             }
-            if(analysis.transferNode(node, (Fact) in, (Fact) out)){
-                icfg.getSuccsOf(node).forEach(workList::offer);
+            boolean changed = analysis.transferNode(node, in, out);
+            stats.countTransfer(changed);
+            if(changed){
+                for(Node succ : icfg.getSuccsOf(node)){
+                    enqueue(succ);
+                }
+                stats.recordWorkListSize(workList.size());
             }
-            result.setInFact(node, (Fact) in);
-            result.setOutFact(node, (Fact) out);
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
+        }
+        recordMethodTime(current, since);
+    }
+
+    /**
+     * Adds given node to the work list, unless it has been pruned.
+     * Every node entering the work list goes through this method.
+     */
+    private void enqueue(Node node) {
+        if(!prunedNodes.contains(node)){
+            workList.offer(node);
+        }
+    }
+
+    /**
+     * Adds the time from given start to now to given method.
+     *
+     * @return the current time.
+     */
+    private long recordMethodTime(Method method, long start) {
+        long now = System.nanoTime();
+        if (method != null) {
+            stats.recordMethodTime(method, now - start);
+        }
+        return now;
+    }
+
+    /**
+     * @return the pruned view of the method containing given node,
+     * or null if the method has not been pruned.
+     */
+    private PrunedIR getPrunedIR(Node node) {
+        return icfg.getContainingMethodOf(node) instanceof JMethod method ?
+                PrunedIR.of(method.getIR()) : null;
+    }
+
+    private boolean isUnreachable(Node node) {
+        PrunedIR pruned = getPrunedIR(node);
+        return pruned != null && node instanceof Stmt stmt && !pruned.isReachable(stmt);
+    }
+
+    /**
+     * @return false if given edge is never taken, i.e., it connects
+     * unreachable nodes or leaves a branch which is proven infeasible.
+     */
+    private boolean isFeasible(ICFGEdge<Node> edge) {
+        Node source = edge.getSource();
+        Node target = edge.getTarget();
+        if(prunedNodes.contains(source) || prunedNodes.contains(target)){
+            return false;
+        }
+        if(edge instanceof NormalEdge<Node> &&
+                source instanceof Stmt s && target instanceof Stmt t){
+            PrunedIR pruned = getPrunedIR(source);
+            return pruned == null || pruned.isFeasible(s, t);
         }
+        return true;
     }
 }
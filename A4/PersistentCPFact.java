@@ -0,0 +1,559 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} backed by an immutable hash array mapped trie (HAMT).
+ * Updates copy only the path from the root to the updated entry and share
+ * the rest of the trie, so {@link #copy()} takes O(1) time and
+ * {@link #update(Var, Value)} takes O(log n) time.
+ * <p>
+ * The shape of the trie only depends on the keys it contains, thus two
+ * facts can be compared by structure, and shared sub-tries are skipped.
+ */
+public class PersistentCPFact extends CPFact {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final Node EMPTY = new Node(0, new Object[0]);
+
+    private static final Comparator<Map.Entry<Var, Value>> ENTRY_ORDER =
+            Comparator.comparingInt((Map.Entry<Var, Value> e) -> e.getKey().getIndex())
+                    .thenComparing(e -> e.getKey().getName());
+
+    private Node root;
+
+    private int size;
+
+    public PersistentCPFact() {
+        this(EMPTY, 0);
+    }
+
+    private PersistentCPFact(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Sets the content of this fact to that of other fact in O(1) time.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean setTo(PersistentCPFact other) {
+        boolean changed = size != other.size || !equalSlots(root, other.root);
+        root = other.root;
+        size = other.size;
+        return changed;
+    }
+
+    /**
+     * Copies all entries of other fact into this fact. Sub-tries shared
+     * by the two facts are skipped, so the cost is proportional to the
+     * difference between them, rather than to their sizes.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean putAll(PersistentCPFact other) {
+        if (size == 0) {
+            return setTo(other);
+        }
+        int[] added = {0};
+        Node newRoot = (Node) merge(root, other.root, 0, added);
+        boolean changed = !equalSlots(root, newRoot);
+        root = newRoot;
+        size += added[0];
+        return changed;
+    }
+
+    /**
+     * Meets given fact into this fact. Sub-tries shared by the two facts
+     * are skipped, as meeting a fact with itself leaves it unchanged.
+     *
+     * @return true if this fact changed, otherwise false.
+     */
+    public boolean meetFrom(PersistentCPFact fact) {
+        if (size == 0) {
+            return setTo(fact);
+        }
+        int[] added = {0};
+        Node newRoot = (Node) meet(root, fact.root, 0, added);
+        boolean changed = newRoot != root;
+        root = newRoot;
+        size += added[0];
+        return changed;
+    }
+
+    @Override
+    public Value get(Var var) {
+        Value value = lookup(root, var, var.hashCode());
+        return value != null ? value : Value.getUndef();
+    }
+
+    @Override
+    public boolean update(Var var, Value value) {
+        if (value.isUndef()) {
+            return remove(var) != null;
+        }
+        int hash = var.hashCode();
+        Value old = lookup(root, var, hash);
+        if (value.equals(old)) {
+            return false;
+        }
+        root = (Node) put(root, new Leaf(var, value, hash, null), 0);
+        if (old == null) {
+            ++size;
+        }
+        return true;
+    }
+
+    @Override
+    public Value remove(Var var) {
+        int hash = var.hashCode();
+        Value old = lookup(root, var, hash);
+        if (old != null) {
+            root = (Node) remove(root, var, hash, 0);
+            --size;
+        }
+        return old;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (fact instanceof PersistentCPFact that && size == 0) {
+            return setTo(that);
+        }
+        boolean[] changed = {false};
+        fact.forEach((var, value) -> changed[0] |= update(var, value));
+        return changed[0];
+    }
+
+    @Override
+    public PersistentCPFact copy() {
+        return new PersistentCPFact(root, size);
+    }
+
+    @Override
+    public void clear() {
+        root = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * The keys, {@link #entries()} and {@link #forEach} follow the order
+     * of the trie, which is cheap to visit but depends on identity hash
+     * codes; only {@link #toString()} sorts the entries.
+     */
+    @Override
+    public Set<Var> keySet() {
+        Set<Var> keys = new HashSet<>();
+        forEach(root, (var, value) -> keys.add(var));
+        return keys;
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return entryList().stream();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        forEach(root, action);
+    }
+
+    private List<Map.Entry<Var, Value>> entryList() {
+        List<Map.Entry<Var, Value>> entries = new ArrayList<>(size);
+        forEach(root, (var, value) ->
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(var, value)));
+        return entries;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof PersistentCPFact that &&
+                size == that.size && equalSlots(root, that.root);
+    }
+
+    @Override
+    public int hashCode() {
+        // consistent with Map.hashCode()
+        int[] hash = {0};
+        forEach(root, (var, value) -> hash[0] += var.hashCode() ^ value.hashCode());
+        return hash[0];
+    }
+
+    /**
+     * Prints the entries in the order of {@link Var#getIndex()}, so that
+     * printed results do not differ from run to run.
+     */
+    @Override
+    public String toString() {
+        List<Map.Entry<Var, Value>> entries = entryList();
+        entries.sort(ENTRY_ORDER);
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        entries.forEach(e -> joiner.add(e.getKey() + "=" + e.getValue()));
+        return joiner.toString();
+    }
+
+    /**
+     * Entry of the trie. Entries whose keys have the same hash are
+     * chained by {@link #next}.
+     */
+    private record Leaf(Var key, Value value, int hash, Leaf next) {
+    }
+
+    /**
+     * Inner node of the trie. Each slot holds either a {@link Leaf}
+     * or a {@link Node}, and bitmap marks which of the 32 slots exist.
+     */
+    private record Node(int bitmap, Object[] slots) {
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static Value lookup(Node root, Var key, int hash) {
+        return lookup(root, key, hash, 0);
+    }
+
+    private static Value lookup(Object slot, Var key, int hash, int shift) {
+        while (slot instanceof Node node) {
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            slot = node.slots[index(node.bitmap, bit)];
+            shift += BITS;
+        }
+        for (Leaf leaf = (Leaf) slot; leaf != null; leaf = leaf.next) {
+            if (leaf.key.equals(key)) {
+                return leaf.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the slot containing all entries of given slot and new leaf.
+     */
+    private static Object put(Object slot, Leaf leaf, int shift) {
+        if (slot instanceof Node node) {
+            int bit = bit(leaf.hash, shift);
+            int i = index(node.bitmap, bit);
+            if ((node.bitmap & bit) == 0) {
+                Object[] slots = new Object[node.slots.length + 1];
+                System.arraycopy(node.slots, 0, slots, 0, i);
+                slots[i] = leaf;
+                System.arraycopy(node.slots, i, slots, i + 1, node.slots.length - i);
+                return new Node(node.bitmap | bit, slots);
+            }
+            Object[] slots = node.slots.clone();
+            slots[i] = put(slots[i], leaf, shift + BITS);
+            return new Node(node.bitmap, slots);
+        }
+        Leaf old = (Leaf) slot;
+        if (old.hash == leaf.hash) {
+            return new Leaf(leaf.key, leaf.value, leaf.hash, removeFromChain(old, leaf.key));
+        }
+        return merge(old, leaf, shift);
+    }
+
+    /**
+     * @param added receives the number of keys in the result which
+     *              are not in s1
+     * @return the slot containing all entries of s2, and the entries of
+     * s1 whose keys are not in s2.
+     */
+    private static Object merge(Object s1, Object s2, int shift, int[] added) {
+        if (s1 == s2) {
+            return s1;
+        }
+        if (s1 instanceof Node n1 && s2 instanceof Node n2) {
+            int bitmap = n1.bitmap | n2.bitmap;
+            Object[] slots = new Object[Integer.bitCount(bitmap)];
+            boolean same = bitmap == n2.bitmap;
+            for (int bits = bitmap, i = 0; bits != 0; bits &= bits - 1, ++i) {
+                int bit = bits & -bits;
+                if ((n2.bitmap & bit) == 0) {
+                    slots[i] = n1.slots[index(n1.bitmap, bit)];
+                } else {
+                    Object child2 = n2.slots[index(n2.bitmap, bit)];
+                    if ((n1.bitmap & bit) == 0) {
+                        slots[i] = child2;
+                        added[0] += count(child2);
+                    } else {
+                        slots[i] = merge(n1.slots[index(n1.bitmap, bit)],
+                                child2, shift + BITS, added);
+                        same &= slots[i] == child2;
+                    }
+                }
+            }
+            return same ? n2 : new Node(bitmap, slots);
+        }
+        if (s1 instanceof Leaf l1) {
+            Object result = s2;
+            int common = 0;
+            for (Leaf l = l1; l != null; l = l.next) {
+                if (lookup(s2, l.key, l.hash, shift) != null) {
+                    ++common;
+                } else {
+                    result = put(result, new Leaf(l.key, l.value, l.hash, null), shift);
+                }
+            }
+            added[0] += count(s2) - common;
+            return result;
+        }
+        Object result = s1;
+        for (Leaf l = (Leaf) s2; l != null; l = l.next) {
+            if (lookup(s1, l.key, l.hash, shift) == null) {
+                ++added[0];
+            }
+            result = put(result, new Leaf(l.key, l.value, l.hash, null), shift);
+        }
+        return result;
+    }
+
+    /**
+     * @param added receives the number of keys in the result which
+     *              are not in s1
+     * @return the slot containing the meet of the entries of s1 and s2,
+     * which is s1 itself if the meet leaves s1 unchanged.
+     */
+    private static Object meet(Object s1, Object s2, int shift, int[] added) {
+        if (s1 == s2) {
+            return s1;
+        }
+        if (s1 instanceof Node n1 && s2 instanceof Node n2) {
+            int bitmap = n1.bitmap | n2.bitmap;
+            Object[] slots = new Object[Integer.bitCount(bitmap)];
+            boolean same = bitmap == n1.bitmap;
+            for (int bits = bitmap, i = 0; bits != 0; bits &= bits - 1, ++i) {
+                int bit = bits & -bits;
+                if ((n2.bitmap & bit) == 0) {
+                    slots[i] = n1.slots[index(n1.bitmap, bit)];
+                } else {
+                    Object child2 = n2.slots[index(n2.bitmap, bit)];
+                    if ((n1.bitmap & bit) == 0) {
+                        slots[i] = child2;
+                        added[0] += count(child2);
+                    } else {
+                        Object child1 = n1.slots[index(n1.bitmap, bit)];
+                        slots[i] = meet(child1, child2, shift + BITS, added);
+                        same &= slots[i] == child1;
+                    }
+                }
+            }
+            return same ? n1 : new Node(bitmap, slots);
+        }
+        if (s1 instanceof Leaf l1 && s2 instanceof Node) {
+            // meet is commutative, so the leaves of s1 are met into s2
+            Object result = s2;
+            int common = 0;
+            for (Leaf l = l1; l != null; l = l.next) {
+                Value old = lookup(s2, l.key, l.hash, shift);
+                if (old != null) {
+                    ++common;
+                }
+                Value value = old != null ? meet(l.value, old) : l.value;
+                if (!value.equals(old)) {
+                    result = put(result, new Leaf(l.key, value, l.hash, null), shift);
+                }
+            }
+            added[0] += count(s2) - common;
+            return result;
+        }
+        Object result = s1;
+        for (Leaf l = (Leaf) s2; l != null; l = l.next) {
+            Value old = lookup(result, l.key, l.hash, shift);
+            if (old == null) {
+                ++added[0];
+            }
+            Value value = old != null ? meet(old, l.value) : l.value;
+            if (!value.equals(old)) {
+                result = put(result, new Leaf(l.key, value, l.hash, null), shift);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Meets two values which are not UNDEF.
+     */
+    private static Value meet(Value v1, Value v2) {
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        }
+        return v1.getConstant() == v2.getConstant() ? v1 : Value.getNAC();
+    }
+
+    private static int count(Object slot) {
+        if (slot instanceof Node node) {
+            int count = 0;
+            for (Object child : node.slots) {
+                count += count(child);
+            }
+            return count;
+        }
+        int count = 0;
+        for (Leaf leaf = (Leaf) slot; leaf != null; leaf = leaf.next) {
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Creates a node holding two leaves whose hashes are different.
+     */
+    private static Node merge(Leaf l1, Leaf l2, int shift) {
+        int b1 = bit(l1.hash, shift);
+        int b2 = bit(l2.hash, shift);
+        if (b1 == b2) {
+            return new Node(b1, new Object[]{merge(l1, l2, shift + BITS)});
+        }
+        return new Node(b1 | b2, Integer.compareUnsigned(b1, b2) < 0 ?
+                new Object[]{l1, l2} : new Object[]{l2, l1});
+    }
+
+    /**
+     * @return given slot without the entry of key, or null if the
+     * resulting slot is empty. A node left with a single leaf is
+     * replaced by the leaf, which keeps the shape of the trie canonical.
+     */
+    private static Object remove(Object slot, Var key, int hash, int shift) {
+        if (slot instanceof Leaf leaf) {
+            return removeFromChain(leaf, key);
+        }
+        Node node = (Node) slot;
+        int bit = bit(hash, shift);
+        int i = index(node.bitmap, bit);
+        Object child = remove(node.slots[i], key, hash, shift + BITS);
+        Node result;
+        if (child == null) {
+            if (node.slots.length == 1) {
+                return shift == 0 ? EMPTY : null;
+            }
+            Object[] slots = new Object[node.slots.length - 1];
+            System.arraycopy(node.slots, 0, slots, 0, i);
+            System.arraycopy(node.slots, i + 1, slots, i, slots.length - i);
+            result = new Node(node.bitmap & ~bit, slots);
+        } else {
+            Object[] slots = node.slots.clone();
+            slots[i] = child;
+            result = new Node(node.bitmap, slots);
+        }
+        if (shift > 0 && result.slots.length == 1 && result.slots[0] instanceof Leaf) {
+            return result.slots[0];
+        }
+        return result;
+    }
+
+    private static Leaf removeFromChain(Leaf leaf, Var key) {
+        if (leaf == null) {
+            return null;
+        }
+        if (leaf.key.equals(key)) {
+            return leaf.next;
+        }
+        Leaf next = removeFromChain(leaf.next, key);
+        return next == leaf.next ? leaf :
+                new Leaf(leaf.key, leaf.value, leaf.hash, next);
+    }
+
+    private static boolean equalSlots(Object s1, Object s2) {
+        if (s1 == s2) {
+            return true;
+        }
+        if (s1 instanceof Node n1 && s2 instanceof Node n2) {
+            if (n1.bitmap != n2.bitmap) {
+                return false;
+            }
+            for (int i = 0; i < n1.slots.length; ++i) {
+                if (!equalSlots(n1.slots[i], n2.slots[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (s1 instanceof Leaf l1 && s2 instanceof Leaf l2) {
+            // entries of a hash chain may be in different orders
+            int length = 0;
+            for (Leaf l = l1; l != null; l = l.next, ++length) {
+                Value v = null;
+                for (Leaf m = l2; m != null; m = m.next) {
+                    if (m.key.equals(l.key)) {
+                        v = m.value;
+                        break;
+                    }
+                }
+                if (!l.value.equals(v)) {
+                    return false;
+                }
+            }
+            for (Leaf l = l2; l != null; l = l.next) {
+                --length;
+            }
+            return length == 0;
+        }
+        return false;
+    }
+
+    private static void forEach(Object slot, BiConsumer<Var, Value> action) {
+        if (slot instanceof Node node) {
+            for (Object child : node.slots) {
+                forEach(child, action);
+            }
+        } else {
+            for (Leaf leaf = (Leaf) slot; leaf != null; leaf = leaf.next) {
+                action.accept(leaf.key, leaf.value);
+            }
+        }
+    }
+}
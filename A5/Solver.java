@@ -26,6 +26,7 @@ import fj.P;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
@@ -101,7 +102,7 @@ class Solver {
         // TODO - check
         if (!callGraph.contains(method)) {
             callGraph.addReachableMethod(method);
-            method.getIR().getStmts().forEach(stmt -> stmt.accept(stmtProcessor));
+            PrunedIR.getStmtsOf(method.getIR()).forEach(stmt -> stmt.accept(stmtProcessor));
         }
     }
 
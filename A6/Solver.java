@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.cs;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.PrunedIR;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
@@ -104,7 +105,7 @@ class Solver {
         // TODO - check
         if (!callGraph.contains(csMethod)) {
             callGraph.addReachableMethod(csMethod);
-            csMethod.getMethod().getIR().getStmts().forEach(stmt -> stmt.accept(new StmtProcessor(csMethod)));
+            PrunedIR.getStmtsOf(csMethod.getMethod().getIR()).forEach(stmt -> stmt.accept(new StmtProcessor(csMethod)));
         }
     }
 
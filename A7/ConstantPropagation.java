@@ -90,7 +90,7 @@ public class ConstantPropagation extends
         if (v1.isConstant() && v2.isConstant()) {
             if (v1.getConstant() == v2.getConstant()) {
                 // c 交 c = c
-                return Value.makeConstant(v1.getConstant());
+                return v1;
             } else {
                 // c1 交 c2 = NAC
                 return Value.getNAC();
@@ -98,12 +98,7 @@ public class ConstantPropagation extends
         }
 
         // UNDEF 交 v = v
-        if (v1.isUndef() || v2.isUndef()) {
-            if (v1.isConstant()) return Value.makeConstant(v1.getConstant());
-            if (v2.isConstant()) return Value.makeConstant(v2.getConstant());
-        }
-
-        return Value.getUndef();
+        return v1.isUndef() ? v2 : v1;
     }
 
     @Override
@@ -157,14 +152,11 @@ public class ConstantPropagation extends
     public static Value evaluate(Exp exp, CPFact in) {
         // TODO - check
         if (exp instanceof Var var) {
-            if(in.get(var).isConstant()){
-                return Value.makeConstant(in.get(var).getConstant());
-            }
             return in.get(var);
         }
 
         if (exp instanceof IntLiteral intLiteral) {
-            return Value.makeConstant(intLiteral.getValue());
+            return Values.makeConstant(intLiteral.getValue());
         }
 
         if (exp instanceof BinaryExp binaryExp) {
@@ -195,51 +187,51 @@ public class ConstantPropagation extends
                 if (op instanceof ArithmeticExp.Op arithmeticOp) {
                     switch (arithmeticOp) {
                         case ADD:
-                            return Value.makeConstant(int1 + int2);
+                            return Values.makeConstant(int1 + int2);
                         case SUB:
-                            return Value.makeConstant(int1 - int2);
+                            return Values.makeConstant(int1 - int2);
                         case MUL:
-                            return Value.makeConstant(int1 * int2);
+                            return Values.makeConstant(int1 * int2);
                         case DIV:
-                            return Value.makeConstant(int1 / int2);
+                            return Values.makeConstant(int1 / int2);
                         case REM:
-                            return Value.makeConstant(int1 % int2);
+                            return Values.makeConstant(int1 % int2);
                     }
                 }
                 if (op instanceof ShiftExp.Op shiftOp) {
                     switch (shiftOp) {
                         case SHL:
-                            return Value.makeConstant(int1 << int2);
+                            return Values.makeConstant(int1 << int2);
                         case SHR:
-                            return Value.makeConstant(int1 >> int2);
+                            return Values.makeConstant(int1 >> int2);
                         case USHR:
-                            return Value.makeConstant(int1 >>> int2);
+                            return Values.makeConstant(int1 >>> int2);
                     }
                 }
                 if (op instanceof BitwiseExp.Op bitwiseOp) {
                     switch (bitwiseOp) {
                         case OR:
-                            return Value.makeConstant(int1 | int2);
+                            return Values.makeConstant(int1 | int2);
                         case AND:
-                            return Value.makeConstant(int1 & int2);
+                            return Values.makeConstant(int1 & int2);
                         case XOR:
-                            return Value.makeConstant(int1 ^ int2);
+                            return Values.makeConstant(int1 ^ int2);
                     }
                 }
                 if (op instanceof ConditionExp.Op conditionOp) {
                     switch (conditionOp) {
                         case EQ:
-                            return Value.makeConstant(int1 == int2 ? 1:0);
+                            return Values.makeConstant(int1 == int2 ? 1:0);
                         case NE:
-                            return Value.makeConstant(int1 != int2 ? 1:0);
+                            return Values.makeConstant(int1 != int2 ? 1:0);
                         case GE:
-                            return Value.makeConstant(int1 >= int2 ? 1:0);
+                            return Values.makeConstant(int1 >= int2 ? 1:0);
                         case GT:
-                            return Value.makeConstant(int1 > int2 ? 1:0);
+                            return Values.makeConstant(int1 > int2 ? 1:0);
                         case LE:
-                            return Value.makeConstant(int1 <= int2 ? 1:0);
+                            return Values.makeConstant(int1 <= int2 ? 1:0);
                         case LT:
-                            return Value.makeConstant(int1 < int2 ? 1:0);
+                            return Values.makeConstant(int1 < int2 ? 1:0);
                     }
                 }
             }
@@ -0,0 +1,78 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+/**
+ * Flyweight factory of {@link Value}s. Constants in a small range are
+ * interned, so that evaluating constant expressions does not allocate,
+ * and such constants (as well as UNDEF and NAC) can be compared by identity.
+ * <p>
+ * The range is [-128, 1023] by default, and can be configured by system
+ * properties {@code pascal.taie.constprop.cache.low} and
+ * {@code pascal.taie.constprop.cache.high}.
+ */
+public final class Values {
+
+    private static final int LOW = Integer.getInteger(
+            "pascal.taie.constprop.cache.low", -128);
+
+    private static final int HIGH = Math.max(LOW, Integer.getInteger(
+            "pascal.taie.constprop.cache.high", 1023));
+
+    private static final Value[] CACHE = new Value[HIGH - LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; ++i) {
+            CACHE[i] = Value.makeConstant(LOW + i);
+        }
+    }
+
+    private Values() {
+    }
+
+    /**
+     * @return the constant value of given integer, which is interned
+     * if the integer is in the cached range.
+     */
+    public static Value makeConstant(int value) {
+        if (value >= LOW && value <= HIGH) {
+            return CACHE[value - LOW];
+        }
+        return Value.makeConstant(value);
+    }
+
+    /**
+     * @return the canonical instance equal to given value if there is one,
+     * otherwise given value itself.
+     */
+    public static Value intern(Value value) {
+        if (value.isConstant()) {
+            int c = value.getConstant();
+            if (c >= LOW && c <= HIGH) {
+                return CACHE[c - LOW];
+            }
+            return value;
+        }
+        return value.isNAC() ? Value.getNAC() : Value.getUndef();
+    }
+}